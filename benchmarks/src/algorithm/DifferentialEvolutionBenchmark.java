@@ -0,0 +1,78 @@
+package algorithm;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.ImageUtils;
+import utils.Randomizer;
+
+/** Benchmarks the selection of the population and a full run with a fixed seed.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class DifferentialEvolutionBenchmark {
+
+	/** Image to will be processed, relative to the project directory. */
+	@Param( { "images/2.jpeg", "images/DGGE1.jpg", "images/DGGE5.JPG" } )
+	public String image;
+	/** Generations of the full run. */
+	@Param( { "20" } )
+	public int generations;
+
+	/** Image loaded in memory. */
+	private BufferedImage loaded;
+	/** Differential Evolution after some generations. */
+	private DifferentialEvolution evolved;
+	/** Population of the evolved Differential Evolution. */
+	private ArrayList<Net> population;
+
+	@Setup
+	public void setup() {
+		loaded = ImageUtils.loadImage( image );
+		evolved = evolution();
+		evolved.run( generations );
+		population = evolved.nets;
+	}
+
+	/** Builds a Differential Evolution with the parameters of Run and a fixed seed.
+	 * @return DifferentialEvolution - New Differential Evolution.
+	 */
+	private DifferentialEvolution evolution() {
+		Randomizer.seed( 0 );
+		return new DifferentialEvolution( loaded, 0.1, 0.3, 0.1, 0.4, 0.6, 2 );
+	}
+
+	/** Selection of the population. Restores the population before each selection. */
+	@Benchmark
+	@OutputTimeUnit( TimeUnit.MICROSECONDS )
+	public int fitPopulation() {
+		evolved.nets = new ArrayList<>( population );
+		return evolved.fitPopulation();
+	}
+
+	/** End to end run, including the image decoding and analysis. */
+	@Benchmark
+	public int run() {
+		return evolution().run( generations );
+	}
+
+}
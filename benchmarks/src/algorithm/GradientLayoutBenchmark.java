@@ -0,0 +1,108 @@
+package algorithm;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.GradientMap;
+import utils.ImagePlane;
+import utils.ImageUtils;
+import utils.RowOccupancy;
+
+/** Benchmarks the row major and the column major layouts of the gradient map on wide
+ * gels, built by repeating an image side by side.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class GradientLayoutBenchmark {
+
+	/** Image to will be repeated, relative to the project directory. */
+	@Param( { "images/DGGE1.jpg", "images/DGGE5.JPG" } )
+	public String image;
+	/** Times the image is repeated side by side. */
+	@Param( { "1", "8", "32" } )
+	public int copies;
+	/** Memory layout of the gradient map. */
+	@Param( { "ROW_MAJOR", "COLUMN_MAJOR" } )
+	public GradientMap.Layout layout;
+
+	/** Decoded plane of the wide gel. */
+	private ImagePlane plane;
+	/** Vertical gradient of the wide gel. */
+	private GradientMap gradient;
+	/** Resistance, quantity of nodes and horizontal step of the nets. */
+	private int resistance, qnode, hstep;
+
+	@Setup
+	public void setup() {
+		BufferedImage loaded = ImageUtils.loadImage( image );
+		BufferedImage wide = new BufferedImage( loaded.getWidth() * copies, loaded.getHeight(), BufferedImage.TYPE_INT_RGB );
+		Graphics2D graphics = wide.createGraphics();
+		for( int i = 0; i < copies; i++ )
+			graphics.drawImage( loaded, i * loaded.getWidth(), 0, null );
+		graphics.dispose();
+		plane = new ImagePlane( wide );
+		gradient = new GradientMap( plane, layout );
+		// Same features than DifferentialEvolution with sensitiveness 0.6 and ndensity 0.3.
+		int[] pixeldiff = ImageUtils.verticalDifferenceAnalysis( gradient );
+		resistance = pixeldiff[ 0 ] + ( int ) ( ( pixeldiff[ 1 ] + 1 - pixeldiff[ 0 ] ) * 0.4 );
+		qnode = ( int ) Math.ceil( gradient.getWidth() * 0.3 );
+		hstep = ( int ) ( 1 / 0.3 ) + 1;
+	}
+
+	/** Calculation of the map from the plane. */
+	@Benchmark
+	public GradientMap build() {
+		return new GradientMap( plane, layout );
+	}
+
+	/** Lifetime of a single node, sweeping a column. */
+	@Benchmark
+	public List<Net> nodeRun() {
+		return lifetime( 1 );
+	}
+
+	/** Lifetime of a generation of nets, spread over the rows like the Differential
+	 * Evolution does with population density 0.1. */
+	@Benchmark
+	public List<Net> populationRun() {
+		return lifetime( ( int ) Math.ceil( gradient.getHeight() * 0.1 ) );
+	}
+
+	/** Runs new nets spread over the rows, direction alternating, until their nodes settle.
+	 * @param quantity : int - Quantity of nets.
+	 * @return List<Net> - Nets at the end of their lifetime.
+	 */
+	private List<Net> lifetime( int quantity ) {
+		RowOccupancy occupancy = new RowOccupancy( gradient.getHeight() );
+		List<Net> nets = new ArrayList<>();
+		for( int i = 0; i < quantity; i++ )
+			nets.add( new Net( ( int ) ( ( i + 0.5 ) * gradient.getHeight() / quantity ), quantity == 1 ? 0 : qnode, hstep,
+					i % 2 == 0 ? 90 : 270, resistance, 2, occupancy ) );
+		for( int lifetime = gradient.getHeight(); lifetime > 0; lifetime-- )
+			for( Net net : nets )
+				net.run( gradient );
+		return nets;
+	}
+
+}
@@ -0,0 +1,86 @@
+package algorithm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utils.GradientMap;
+import utils.ImagePlane;
+import utils.ImageUtils;
+import utils.RowOccupancy;
+
+/** Benchmarks the lifetime of a node and of a net, and the fitness of a net.
+ * Nets are built as the Differential Evolution of Run does.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class NetBenchmark {
+
+	/** Image to will be processed, relative to the project directory. */
+	@Param( { "images/2.jpeg", "images/DGGE1.jpg", "images/DGGE5.JPG" } )
+	public String image;
+
+	/** Vertical gradient of the image. */
+	private GradientMap gradient;
+	/** Resistance, quantity of nodes and horizontal step of the nets. */
+	private int resistance, qnode, hstep;
+	/** Net at the end of its lifetime. */
+	private Net settled;
+
+	@Setup
+	public void setup() {
+		gradient = new GradientMap( new ImagePlane( ImageUtils.loadImage( image ) ) );
+		// Same features than DifferentialEvolution with sensitiveness 0.6 and ndensity 0.3.
+		int[] pixeldiff = ImageUtils.verticalDifferenceAnalysis( gradient );
+		resistance = pixeldiff[ 0 ] + ( int ) ( ( pixeldiff[ 1 ] + 1 - pixeldiff[ 0 ] ) * 0.4 );
+		qnode = ( int ) Math.ceil( gradient.getWidth() * 0.3 );
+		hstep = ( int ) ( 1 / 0.3 ) + 1;
+		settled = lifetime( qnode );
+	}
+
+	/** Runs a new net in the middle of the image until its nodes settle.
+	 * @param quantity : int - Quantity of nodes after the header.
+	 * @return Net - Net at the end of its lifetime.
+	 */
+	private Net lifetime( int quantity ) {
+		Net net = new Net( gradient.getHeight() / 2, quantity, hstep, 90, resistance, 2, new RowOccupancy( gradient.getHeight() ) );
+		for( int lifetime = gradient.getHeight(); lifetime > 0 && net.getActiveNodes() > 0; lifetime-- )
+			net.run( gradient );
+		return net;
+	}
+
+	/** Lifetime of a single node. */
+	@Benchmark
+	public Net nodeRun() {
+		return lifetime( 0 );
+	}
+
+	/** Lifetime of a net with the nodes of a generation. */
+	@Benchmark
+	public Net netRun() {
+		return lifetime( qnode );
+	}
+
+	/** Fitness of a settled net. */
+	@Benchmark
+	public int fitness() {
+		return settled.fitness();
+	}
+
+}
@@ -0,0 +1,28 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs the JMH benchmarks always with the GC profiler, so every result reports
+ * the allocation rate. Accepts the JMH command line options, e.g. a benchmark regex.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class Benchmarks {
+
+	/** Private constructor. */
+	private Benchmarks() {}
+
+	/* Main execution method. */
+	public static void main( String[] args ) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent( new CommandLineOptions( args ) )
+				.addProfiler( GCProfiler.class )
+				.build();
+		new Runner( options ).run();
+	}
+
+}
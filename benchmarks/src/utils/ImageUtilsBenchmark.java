@@ -0,0 +1,121 @@
+package utils;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import algorithm.DifferentialEvolution;
+import algorithm.Net;
+
+/** Benchmarks the filters, the analysis and the drawing of the image utilities.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ImageUtilsBenchmark {
+
+	/** Image to will be processed, relative to the project directory. */
+	@Param( { "images/2.jpeg", "images/DGGE1.jpg", "images/DGGE5.JPG" } )
+	public String image;
+
+	/** Image loaded in memory. */
+	private BufferedImage loaded;
+	/** Decoded image plane. */
+	private ImagePlane plane;
+	/** Grayscale copy of the image, restored before each contrast. */
+	private BufferedImage gray;
+	/** Nets found with a fixed seed. */
+	private Iterable<Net> nets;
+
+	@Setup
+	public void setup() {
+		loaded = ImageUtils.loadImage( image );
+		plane = new ImagePlane( loaded );
+		Randomizer.seed( 0 );
+		DifferentialEvolution de = new DifferentialEvolution( loaded, 0.1, 0.3, 0.1, 0.4, 0.6, 2 );
+		de.run( 20 );
+		nets = de.nets;
+	}
+
+	@Setup( Level.Invocation )
+	public void restore() {
+		gray = ImageUtils.cloneImage( loaded );
+		ImageUtils.grayScale( gray );
+	}
+
+	@Benchmark
+	public BufferedImage laplace() {
+		return ImageUtils.laplace( loaded );
+	}
+
+	/** Analysis over the decoded plane. */
+	@Benchmark
+	public int[] verticalDifferenceAnalysis() {
+		return ImageUtils.verticalDifferenceAnalysis( plane );
+	}
+
+	/** Analysis over the image, including the decoding of the plane. */
+	@Benchmark
+	public int[] verticalDifferenceAnalysisImage() {
+		return ImageUtils.verticalDifferenceAnalysis( loaded );
+	}
+
+	/** Every statistic in one pass over the decoded plane. */
+	@Benchmark
+	public ImageStats imageStats() {
+		return new ImageStats( plane );
+	}
+
+	/** Every statistic in one pass over the image, without decoding a plane. */
+	@Benchmark
+	public ImageStats imageStatsImage() {
+		return new ImageStats( loaded );
+	}
+
+	/** Separate passes for the same statistics over the image. */
+	@Benchmark
+	public double[] separatePasses() {
+		ImageUtils.histogram( loaded );
+		ImageUtils.verticalDifferenceAnalysis( loaded );
+		return ImageUtils.columnProjection( new ImagePlane( loaded ) );
+	}
+
+	@Benchmark
+	public BufferedImage contrast() {
+		ImageUtils.contrast( gray, 5, 0 );
+		return gray;
+	}
+
+	/** Draws every net over the grayscale copy. */
+	@Benchmark
+	public BufferedImage drawNet() {
+		for( Net net : nets )
+			ImageUtils.drawNet( gray, Color.WHITE, net, 0, -1 );
+		return gray;
+	}
+
+	/** Renders every net into a separate layer, the image isn't modified. */
+	@Benchmark
+	public BufferedImage overlay() {
+		return OverlayRenderer.render( nets, loaded.getWidth(), loaded.getHeight(), 1, Color.WHITE, 0, -1 );
+	}
+
+}
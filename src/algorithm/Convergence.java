@@ -0,0 +1,103 @@
+package algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Convergence criteria for stopping the Differential Evolution before running all
+ * the generations requested. Each criterion is disabled with a value of 0.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class Convergence {
+
+	/** Generations without improvement of the best fitness before stopping. */
+	private int plateau;
+	/** Generations with the same surviving bands before stopping. */
+	private int stability;
+	/** Ratio of settled (READY) nodes over live nodes before stopping. (0,1]. */
+	private double settled;
+
+	// Tracking variables.
+
+	/** Best fitness found. */
+	private int best;
+	/** Generations since the best fitness was improved. */
+	private int plateauCount;
+	/** Limits of the surviving nets of the last generation, encoded and sorted. */
+	private long[] bands;
+	/** Generations since the surviving bands changed. */
+	private int stableCount;
+
+	/** Constructor.
+	 * @param plateau : int - Generations without improvement of the best fitness. 0 for disabling.
+	 * @param stability : int - Generations with the same surviving bands. 0 for disabling.
+	 * @param settled : double - Ratio of settled nodes over live nodes. 0 for disabling.
+	 */
+	public Convergence( int plateau, int stability, double settled ) {
+		this.plateau = plateau;
+		this.stability = stability;
+		this.settled = settled;
+		reset();
+	}
+
+	/** Copy constructor. Copies the criteria, not the tracking.
+	 * @param convergence : Convergence - Convergence criteria to copy.
+	 */
+	public Convergence( Convergence convergence ) {
+		this( convergence.plateau, convergence.stability, convergence.settled );
+	}
+
+	/** Resets the tracking of the generations. */
+	public void reset() {
+		best = Integer.MIN_VALUE;
+		plateauCount = 0;
+		bands = new long[ 0 ];
+		stableCount = 0;
+	}
+
+	/** Verifies if the nodes of the population are settled enough.
+	 * @param ready : long - Quantity of READY nodes.
+	 * @param live : long - Quantity of live nodes.
+	 * @return boolean - True if the settled ratio is reached, False otherwise.
+	 */
+	boolean isSettled( long ready, long live ) {
+		return settled > 0 && live > 0 && ( double ) ready / live >= settled;
+	}
+
+	/** Registers a generation and verifies if the population converged.
+	 * @param bestFitness : int - Best fitness of the generation.
+	 * @param survivors : List<Net> - Nets selected in the generation.
+	 * @return boolean - True if plateau or stability criterion is reached, False otherwise.
+	 */
+	boolean update( int bestFitness, List<Net> survivors ) {
+		// Best fitness plateau.
+		if( bestFitness > best ) {
+			best = bestFitness;
+			plateauCount = 0;
+		} else
+			plateauCount++;
+		// Surviving bands stability.
+		if( stability > 0 ) {
+			long[] current = encodeBands( survivors );
+			stableCount = Arrays.equals( current, bands ) ? stableCount + 1 : 0;
+			bands = current;
+		}
+		return ( plateau > 0 && plateauCount >= plateau ) || ( stability > 0 && stableCount >= stability );
+	}
+
+	/** Encodes the limits of the nets as a sorted array, for comparing band sets.
+	 * @param nets : List<Net> - Nets.
+	 * @return long[] - Array of limits. Each value is top in high bits and bottom in low bits.
+	 */
+	private static long[] encodeBands( List<Net> nets ) {
+		long[] encoded = new long[ nets.size() ];
+		int i = 0;
+		for( Net net : nets ) {
+			int[] limits = net.getLimits();
+			encoded[ i++ ] = ( ( long ) limits[ 0 ] << 32 ) | ( limits[ 1 ] & 0xFFFFFFFFL );
+		}
+		Arrays.sort( encoded );
+		return encoded;
+	}
+
+}
@@ -1,12 +1,24 @@
 package algorithm;
 
 import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import utils.FreeRowSampler;
+import utils.GradientMap;
+import utils.ImagePlane;
+import utils.ImageStats;
 import utils.ImageUtils;
+import utils.OverlayRenderer;
+import utils.RandomStream;
 import utils.Randomizer;
+import utils.RowOccupancy;
+import utils.Timer;
 
 /** Generates and evolves multiple nodes as RNA into nets. 
  * @author Cristopher Alvear Candia.
@@ -14,12 +26,20 @@ import utils.Randomizer;
  */
 public class DifferentialEvolution {
 	
-	/** Image loaded in memory. */
-	private BufferedImage image;
+	/** Resistance of the mutated nets. */
+	private static final int MUTATION_RESISTANCE = 1;
+	/** Direction of the new nets, 90 (up). Drawing 90 or 270 was measured worse, less of
+	 * the real nets are on bands and less bands are found on the bundled gels. */
+	private static final int DIRECTION = 90;
+	
+	/** Vertical gradient of the image plane decoded once, read by the nodes on every step. */
+	private GradientMap gradient;
 	/** List of nets. The population. */
 	public ArrayList<Net> nets;
-	/** Current net positions. */
-	public int[][] unavailableRanges;
+	/** Current net positions. Occupancy index of the rows. */
+	private RowOccupancy occupancy;
+	/** Sampler of the free rows where new nets are inserted, kept in sync with the occupancy. */
+	private FreeRowSampler sampler;
 	
 	// Differential Evolution variables.
 	
@@ -43,8 +63,28 @@ public class DifferentialEvolution {
 	/** Maximum dispersion/variation of thickness allowed. */
 	private int dispallow;
 	
-	/** Heuristic. Minimum and maximum vertical pixel value difference of the image. { min, max }*/
-	private int[] pixeldiff;
+	/** Heuristic. Resistance of the new nets, between the minimum and the maximum vertical pixel
+	 * value difference of the image depending of sensitiveness. */
+	private int resistance;
+	/** Fraction of the vertical differences treated as edges by the resistance. 0 when given by the sensitiveness. */
+	private double edges;
+	
+	// Execution variables.
+	
+	/** Convergence criteria for stopping before the generations requested. Null for disabling. */
+	private Convergence convergence;
+	/** Quantity of threads of the lifetime simulation. 0 means sequential simulation. */
+	private int parallelism;
+	/** Time spent by the lifetime simulation, in nanoseconds. */
+	private long simulationTime;
+	/** Recorder of the measures of each generation. Null when disabled. */
+	private MetricsRecorder metrics;
+	/** Receiver of the population snapshots. Null when no view is attached. */
+	private SnapshotListener listener;
+	/** Minimum time between two snapshots, and time of the last one, in nanoseconds. */
+	private long snapshotInterval, lastSnapshot;
+	/** Random stream of the engine. Split from the Randomizer root stream when the first run starts, if not set. */
+	private RandomStream random;
 	
 	/** Constructor. Double parameters values are between 0 and 1.
 	 * @param image : BufferedImage - Image to will be processed.
@@ -57,20 +97,145 @@ public class DifferentialEvolution {
 	 */
 	public DifferentialEvolution( BufferedImage image, double popdensity, double ndensity,
 			double mutation, double selection, double sensitiveness, int dispallow ) {
+		this( new ImagePlane( image ), popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+	}
+	
+	/** Constructor from an image plane already decoded, e.g. read by strips from a large scan.
+	 * @param plane : ImagePlane - Decoded image plane to will be processed.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public DifferentialEvolution( ImagePlane plane, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
+		this( plane, null, popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+	}
+	
+	/** Constructor from an image plane and its vertical difference statistics already calculated,
+	 * e.g. loaded from a plane cache. The vertical gradient is always calculated from the plane.
+	 * @param plane : ImagePlane - Decoded image plane to will be processed.
+	 * @param differences : int[] - Minimum and maximum vertical pixel value difference { min, max }. Null for calculating them.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public DifferentialEvolution( ImagePlane plane, int[] differences, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
+		// Calculates the vertical gradient of the image only once.
+		this( new GradientMap( plane ), differences, popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+	}
+	
+	/** Constructor from a vertical gradient already calculated, shared between several engines
+	 * over the same image. The gradient is only read.
+	 * @param gradient : GradientMap - Vertical gradient of the image to will be processed.
+	 * @param differences : int[] - Minimum and maximum vertical pixel value difference { min, max }. Null for calculating them.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	DifferentialEvolution( GradientMap gradient, int[] differences, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
 		// Assigns variable values.
-		this.image = image;
 		this.popdensity = popdensity;
 		this.ndensity = ndensity;
 		this.mutation = mutation;
 		this.selection = selection;
 		this.dispallow = dispallow;
-		// Initializes list of nets.
+		// Initializes list of nets and the index of their positions.
 		nets = new ArrayList<>();
-		// Calculates minimum and maximum pixel value differences of the image.
-		pixeldiff = ImageUtils.verticalDifferenceAnalysis( image );
-		// Calculate new maximum minimum depending of sensitiveness.
-		pixeldiff[ 1 ]++;
-		pixeldiff[ 0 ] += ( pixeldiff[ 1 ] - pixeldiff[ 0 ] ) * ( 1 - sensitiveness );
+		occupancy = new RowOccupancy( gradient.getHeight() );
+		// New nets are inserted around the middle of the image.
+		float middle = gradient.getHeight() / 2;
+		sampler = new FreeRowSampler( occupancy, middle, middle );
+		this.gradient = gradient;
+		// Calculates minimum and maximum pixel value differences of the image, if not given.
+		int[] pixeldiff = differences != null ? differences : ImageUtils.verticalDifferenceAnalysis( gradient );
+		// Calculate the resistance depending of sensitiveness.
+		resistance = pixeldiff[ 0 ] + ( int ) ( ( pixeldiff[ 1 ] + 1 - pixeldiff[ 0 ] ) * ( 1 - sensitiveness ) );
+	}
+	
+	// Getters.
+	
+	/** Returns the time spent by the lifetime simulation of all generations run.
+	 * @return double - Time in milliseconds.
+	 */
+	public double getSimulationTimeInMillis() {
+		return ( double ) simulationTime / 1000000;
+	}
+	
+	// Setters.
+	
+	/** Sets the convergence criteria. The algorithm will stop when some criterion is reached.
+	 * @param convergence : Convergence - Convergence criteria. Null for running all generations.
+	 */
+	public void setConvergence( Convergence convergence ) {
+		this.convergence = convergence;
+	}
+	
+	/** Sets the resistance of the new nets, replacing the one given by the sensitiveness,
+	 * e.g. a resistance shared by the lanes of a gel.
+	 * @param resistance : int - Movement resistance threshold.
+	 */
+	public void setResistance( int resistance ) {
+		this.resistance = resistance;
+		edges = 0;
+	}
+	
+	/** Sets the resistance of the new nets from the distribution of the vertical differences of
+	 * the image, replacing the one given by the sensitiveness.
+	 * @param stats : ImageStats - Statistics of the image.
+	 * @param edges : double - Fraction of the vertical differences treated as edges, between 0 and 1.
+	 */
+	public void setEdges( ImageStats stats, double edges ) {
+		setResistance( stats.resistance( edges ) );
+		this.edges = edges;
+	}
+	
+	/** Sets the quantity of threads of the lifetime simulation. With 0 (default) nets
+	 * are run one after another, seeing the limits moved by the previous nets. With 1
+	 * or more threads every net of a step sees the limits of the previous step, and the
+	 * new limits are committed at the end of the step, so results don't depend on the
+	 * quantity of threads.
+	 * @param parallelism : int - Quantity of threads. 0 for sequential simulation.
+	 */
+	public void setParallelism( int parallelism ) {
+		// Precondition : parallelism >= 0.
+		this.parallelism = parallelism;
+	}
+	
+	/** Attaches a receiver of population snapshots, throttled to a maximum frame rate.
+	 * The last generation is always sent. Without receiver no snapshot is taken.
+	 * @param listener : SnapshotListener - Receiver of the snapshots. Null for detaching it.
+	 * @param framesPerSecond : int - Maximum quantity of snapshots per second.
+	 */
+	public void setSnapshotListener( SnapshotListener listener, int framesPerSecond ) {
+		this.listener = listener;
+		snapshotInterval = 1000000000L / Math.max( 1, framesPerSecond );
+	}
+	
+	/** Attaches a recorder of the measures of each generation. Without recorder nothing is measured
+	 * apart from the phase durations.
+	 * @param metrics : MetricsRecorder - Recorder of the measures. Null for detaching it.
+	 */
+	public void setMetrics( MetricsRecorder metrics ) {
+		this.metrics = metrics;
+	}
+	
+	/** Sets the random stream of the engine, for reproducible runs when several engines
+	 * are created or run at the same time.
+	 * @param random : RandomStream - Random stream used only by this engine.
+	 */
+	public void setRandom( RandomStream random ) {
+		this.random = random;
 	}
 	
 	/** Calculates net features.
@@ -78,119 +243,369 @@ public class DifferentialEvolution {
 	 * @param ndensity : double - Percentage of generating new children from population.
 	 */
 	private void calculateNetFeatures( double popdensity, double ndensity ) {
-		qnet = ( int ) Math.ceil( image.getHeight() * popdensity ) - nets.size();
-		qnode = ( int ) Math.ceil( image.getWidth() * ndensity );
+		qnet = ( int ) Math.ceil( gradient.getHeight() * popdensity ) - nets.size();
+		qnode = ( int ) Math.ceil( gradient.getWidth() * ndensity );
 		hstep = ( int ) ( 1 / ndensity ) + 1;
 	}
 	
-	/** Calculates net current positions and occupied ranges. */
-	private void calculateUnavailableRanges() {
-		// Initializes new ranges array.
-		unavailableRanges = new int[ nets.size() ][];
-		int i = 0;
-		// Saves all net limits into ranges array.
-		for( Net net : nets )
-			unavailableRanges[ i++ ] = net.getLimits();
-	}
-	
-	/** Generates a new net and adds it to nets list.
+	/** Generates a new net and adds it to nets list. No net is generated if every row is occupied.
 	 * @param resistance : int - Resistance of movements of the net through image surface.
+	 * @param stream : RandomStream - Random stream of the generation.
 	 */
-	private void generateNet( int resistance ) {
-		float middle = image.getHeight() / 2;
+	private void generateNet( int resistance, RandomStream stream ) {
+		int row = sampler.sample( stream );
+		if( row < 0 )
+			return;
 		nets.add( new Net(
-					Randomizer.getGaussianExceptTheRanges( middle, middle, 0, image.getHeight(), unavailableRanges ), // Row.
+					row, // Row.
 					qnode, // Quantity of nodes.
 					hstep, // Horizontal step between nodes.
-					Randomizer.getVerticalDirection(), // Direction, maybe 90 (up) or 270 (down).
+					DIRECTION, // Direction.
 					resistance, // Resistance.
-					dispallow // Dispersion of thickness allowed.
+					dispallow, // Dispersion of thickness allowed.
+					occupancy // Positions of the nets.
 				) );
 	}
 	
-	/** Generates the nets for the current generation.
+	/** Generates the nets for the current generation, with its own stream split from the engine one.
 	 * @param quantity : int - Quantity of nodes.
 	 */
 	private void generate( int quantity, int resistance ) {
-		while( quantity-- > 0 ) {
-			calculateUnavailableRanges();
-			generateNet( resistance );
-		}
+		RandomStream stream = random.split();
+		while( quantity-- > 0 )
+			generateNet( resistance, stream );
 	}
 	
-	/** Generates nets for the current generation.
+	/** Generates nets for the current generation, with the resistance of the sensitiveness.
 	 * @param quantity : int - Quantity of nodes.
 	 */
 	private void generate( int quantity ) {
-		generate( quantity, Randomizer.getInt( pixeldiff[ 0 ], pixeldiff[ 1 ] ) );
+		generate( quantity, resistance );
 	}
 	
-	/** Generates the mutated (randomized) nets for the current generation.
+	/** Generates the mutated (randomized) nets for the current generation. Mutated nets have
+	 * the lowest resistance, so they stop at any edge.
 	 * @param quantity : int - Quantity of nodes.
 	 */
 	private void generateMutations( int quantity ) {
-		generate( quantity, Randomizer.getInt( 1, 255 ) );
+		generate( quantity, MUTATION_RESISTANCE );
 	}
 	
-	/** Draws the nets in the image.
+	/** Draws the nets in the image, through their overlay.
 	 * @param image : BufferedImage - Image.
 	 * @param color : Color - Color of the drawing.
 	 * @param nodeLevel : int - Thickness of the nodes drawing.
 	 * @param lineLevel : int - Thickness of the lines drawing.
 	 */	
 	public void print( BufferedImage image, Color color, int nodeLevel, int lineLevel ) {
-		for( Net net : nets )
-			ImageUtils.drawNet( image, color, net.getHeader(), nodeLevel, lineLevel  );
+		Graphics2D graphics = image.createGraphics();
+		graphics.drawImage( overlay( color, nodeLevel, lineLevel, 1 ), 0, 0, null );
+		graphics.dispose();
 	}
 	
-	/** Fits the population selecting the best nets. */
-	private void fitPopulation() {
+	/** Renders the nets into a transparent layer, without modifying the image.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing.
+	 * @param lineLevel : int - Thickness of the lines drawing.
+	 * @param scale : double - Zoom of the layer. 1 for the size of the image.
+	 * @return BufferedImage - ARGB layer with the nets.
+	 */
+	public BufferedImage overlay( Color color, int nodeLevel, int lineLevel, double scale ) {
+		return OverlayRenderer.render( nets, gradient.getWidth(), gradient.getHeight(), scale, color, nodeLevel, lineLevel );
+	}
+	
+	/** Fits the population selecting the best nets. Finds the selection threshold in
+	 * linear time, keeping the order of the population.
+	 * @return int - Best fitness of the population.
+	 */
+	int fitPopulation() {
 		// List of selected nets.
 		ArrayList<Net> bestNets = new ArrayList<>();
-		// Sorts (descending) the nets by fitness. (Best fitness are at the end of the list).
-		Collections.sort( nets );
 		
-		// Index for to access to the nets.
-		int i;
-		// Advances until to find first positive fitness value in the nets.
-		for( i = 0; i < nets.size() && nets.get( i ).fitness() < 0; i++ );
+		// Calculates the minimum positive and the maximum fitness of the nets.
+		int bestmin = Integer.MAX_VALUE, bestmax = Integer.MIN_VALUE, fitness;
+		for( Net net : nets ) {
+			fitness = net.fitness();
+			bestmax = bestmax > fitness ? bestmax : fitness;
+			if( fitness >= 0 )
+				bestmin = bestmin < fitness ? bestmin : fitness;
+		}
 		
-		// If index is out of bounds, finalizes.
-		if( i >= nets.size() )
-			return;
-		// Calculates the minimum and maximum fitness of the nets.
-		int bestmin = nets.get( i ).fitness(), bestmax = nets.get( nets.size() - 1 ).fitness();
+		// If there isn't positive fitness, finalizes.
+		if( bestmax < 0 )
+			return bestmax;
 		// Calculates the lower fitness depending of selection percentage.
 		int lowerfitness =  bestmax - ( int ) ( ( bestmax - bestmin ) * selection );
 		
 		// Selects the best nets depending of selection percentage.
-		for( ; i < nets.size(); i++ )
-			if( nets.get( i ).fitness() >= lowerfitness )
-				bestNets.add( nets.get( i ) );
+		for( Net net : nets )
+			if( net.fitness() >= lowerfitness )
+				bestNets.add( net );
+			else
+				net.release();
 		
 		// Sets the new list with the best nets.
 		nets = bestNets;
+		return bestmax;
+	}
+	
+	/** Executes the behaviour of the nets during their lifetime. Finalizes before
+	 * the lifetime if every node is settled (none FREE or BLOCKED).
+	 * @param lifetime : int - Quantity of steps.
+	 * @param pool : ForkJoinPool - Pool of threads. Null for running in the current thread.
+	 */
+	private void simulate( int lifetime, ForkJoinPool pool ) {
+		// Worklist of the nets with active nodes, in population order. Settled nets leave it.
+		List<Net> moving = new ArrayList<>( nets );
+		moving.removeIf( net -> net.getActiveNodes() == 0 );
+		// Sequential simulation, each net sees the limits already moved by the previous ones.
+		if( parallelism == 0 ) {
+			while( --lifetime > 0 && !moving.isEmpty() )
+				moving.removeIf( net -> {
+					net.run( gradient );
+					return net.getActiveNodes() == 0;
+				} );
+			return;
+		}
+		// Parallel simulation, every net steps over the same snapshot of the limits.
+		while( --lifetime > 0 && !moving.isEmpty() ) {
+			if( pool == null )
+				for( Net net : moving )
+					net.step( gradient );
+			else
+				pool.invoke( new SimulationStep( moving, gradient, 0, moving.size(), Math.max( 1, moving.size() / ( parallelism * 4 ) ) ) );
+			// Swaps the limits at the end of the step.
+			moving.removeIf( net -> {
+				net.commit();
+				return net.getActiveNodes() == 0;
+			} );
+		}
+	}
+	
+	/** Verifies if the nodes of the population are settled enough to stop.
+	 * @return boolean - True if settled ratio criterion is reached, False otherwise.
+	 */
+	private boolean isSettled() {
+		long ready = 0, live = 0;
+		for( Net net : nets ) {
+			ready += net.size() - net.getActiveNodes();
+			live += net.size();
+		}
+		return convergence.isSettled( ready, live );
 	}
 	
 	/** Draws the nets in the image.
 	 * @param generations : int - How many generations will be generated.
+	 * @return int - How many generations were generated, less than requested if converged.
 	 */
-	public void run( int generations ) {
+	public int run( int generations ) {
+		if( convergence != null )
+			convergence.reset();
+		return evolve( generations );
+	}
+	
+	/** Runs more generations over the current population, keeping the convergence tracking
+	 * of the previous ones, e.g. between two migrations of an island model.
+	 * @param generations : int - How many generations will be generated.
+	 * @return int - How many generations were generated, less than requested if converged.
+	 */
+	int evolve( int generations ) {
 		// Iterations for each generation.
-		int lifetime;
-		while( generations-- > 0 ) {//|| nets.size() < 20 ) {
-			// Calculate net specific features.
-			calculateNetFeatures( popdensity , ndensity );
-			lifetime = ( int ) ( image.getHeight() * ( 1 - popdensity ) );
-			// Generates the new nets generation.
-			generate( ( int ) ( qnet * ( 1 - mutation ) ) );
-			generateMutations( ( int ) ( qnet * mutation ) );
-			// Executes the behaviour of the nets.
-			while( --lifetime > 0 )
-				for( Net net : nets )
-					net.run( image, unavailableRanges );
-			// Selects the best nets to survive.
-			fitPopulation();
+		int lifetime, generated = 0, best = 0;
+		boolean converged = false;
+		long start, generateTime;
+		Timer timer = new Timer();
+		if( random == null )
+			random = Randomizer.stream();
+		ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool( parallelism ) : null;
+		try {
+			while( generations-- > 0 && !converged ) {//|| nets.size() < 20 ) {
+				// Calculate net specific features.
+				calculateNetFeatures( popdensity , ndensity );
+				lifetime = ( int ) ( gradient.getHeight() * ( 1 - popdensity ) );
+				// Generates the new nets generation.
+				start = System.nanoTime();
+				generate( ( int ) ( qnet * ( 1 - mutation ) ) );
+				generateMutations( ( int ) ( qnet * mutation ) );
+				generateTime = System.nanoTime() - start;
+				// Executes the behaviour of the nets.
+				timer.start();
+				simulate( lifetime, pool );
+				timer.stop();
+				simulationTime += timer.getTimeInNanos();
+				generated++;
+				// Verifies the convergence and selects the best nets to survive.
+				converged = convergence != null && isSettled();
+				if( metrics != null )
+					best = fitPopulationMeasured( generated, generateTime, timer.getTimeInNanos() );
+				else
+					best = fitPopulation();
+				converged |= convergence != null && convergence.update( best, nets );
+				if( listener != null )
+					publish( generated, best, generations == 0 || converged );
+			}
+		} finally {
+			if( pool != null )
+				pool.shutdown();
+			if( metrics != null )
+				metrics.flush();
+		}
+		return generated;
+	}
+	
+	/** Fits the population measuring the generation, and records the measures.
+	 * @param generation : int - Generations run.
+	 * @param generateTime : long - Duration of the generation of new nets, in nanoseconds.
+	 * @param simulationTime : long - Duration of the lifetime simulation, in nanoseconds.
+	 * @return int - Best fitness of the population.
+	 */
+	private int fitPopulationMeasured( int generation, long generateTime, long simulationTime ) {
+		long[] states = new long[ 3 ];
+		long waste = 0, reads = 0, nodes = 0;
+		for( Net net : nets ) {
+			net.countStates( states );
+			waste += net.takeRemovedNodes();
+			reads += net.takePixelReads();
+			nodes += net.size();
 		}
+		int alive = nets.size();
+		long start = System.nanoTime();
+		int best = fitPopulation();
+		long fitTime = System.nanoTime() - start;
+		// Nodes of the discarded nets are removed too.
+		for( Net net : nets )
+			nodes -= net.size();
+		metrics.record( new GenerationMetrics( generation, generateTime, simulationTime, fitTime,
+				alive, states, waste, waste + nodes, reads ) );
+		return best;
+	}
+	
+	/** Seeds the population with the nets found at a coarser level of a pyramid, scaled to
+	 * this one, and refines them with a short lifetime. Each node starts a little behind its
+	 * scaled position, against its direction, so it can reach the edge again. A node is
+	 * inserted between each two nodes, keeping the nodes density of this level. Each net keeps
+	 * the resistance of its coarse net, translated to the differences of this level. If both
+	 * levels take the resistance from the same fraction of edges, the nets with the resistance
+	 * of the edges take the one of this level, which is exact.
+	 * @param coarse : List<Net> - Nets found at the coarser level.
+	 * @param scale : int - Scale between the levels.
+	 * @param lifetime : int - Quantity of steps of the refinement.
+	 * @param coarseStats : ImageStats - Statistics of the coarser level.
+	 * @param stats : ImageStats - Statistics of this level.
+	 */
+	void refine( List<Net> coarse, int scale, int lifetime, ImageStats coarseStats, ImageStats stats ) {
+		int width = gradient.getWidth(), height = gradient.getHeight();
+		for( Net net : coarse ) {
+			if( net.size() == 0 )
+				continue;
+			int[] xs = new int[ net.size() * 2 - 1 ], ys = new int[ xs.length ];
+			int direction = 0, k = 0;
+			for( Node node : net ) {
+				direction = ( int ) node.getAngle();
+				// Scaled position, moved back against the direction.
+				int x = node.getX() * scale + ( int ) Math.round( ImageUtils.moveHorizontalComponent( direction, scale ) );
+				int y = node.getY() * scale + ( int ) Math.round( ImageUtils.moveVerticalComponent( direction, scale ) );
+				x = Math.min( width - 1, Math.max( 0, x ) );
+				y = Math.min( height - 1, Math.max( 0, y ) );
+				if( k > 0 ) {
+					xs[ k ] = ( xs[ k - 1 ] + x ) / 2;
+					ys[ k ] = ( ys[ k - 1 ] + y ) / 2;
+					k++;
+				}
+				xs[ k ] = x;
+				ys[ k++ ] = y;
+			}
+			int translated = edges > 0 && net.getResistance() == coarseStats.resistance( edges ) ? resistance
+					: coarseStats.translateDifference( net.getResistance(), stats );
+			nets.add( new Net( xs, ys, direction, translated, dispallow, occupancy ) );
+		}
+		simulate( lifetime, null );
+		// Nets without nodes left are dropped, they don't occupy rows anymore.
+		nets.removeIf( net -> net.size() == 0 );
+	}
+	
+	/** Returns the best nets of the population, from the best one. Nets without nodes are skipped.
+	 * @param quantity : int - Maximum quantity of nets.
+	 * @return List<Net> - Best nets, still members of this population.
+	 */
+	List<Net> best( int quantity ) {
+		List<Net> best = new ArrayList<>( nets );
+		best.removeIf( net -> net.size() == 0 );
+		best.sort( Collections.reverseOrder() );
+		return best.subList( 0, Math.min( quantity, best.size() ) );
+	}
+	
+	/** Inserts copies of nets from another population over the same image. A net is skipped
+	 * if some row between its limits is already occupied here.
+	 * @param migrants : List<Net> - Nets of the other population.
+	 * @return int - Quantity of nets inserted.
+	 */
+	int immigrate( List<Net> migrants ) {
+		int inserted = 0;
+		for( Net migrant : migrants ) {
+			int[] limits = migrant.getLimits();
+			boolean free = true;
+			for( int row = limits[ 0 ]; row <= limits[ 1 ] && free; row++ )
+				free = !occupancy.isOccupied( row );
+			if( free ) {
+				nets.add( migrant.copy( occupancy ) );
+				inserted++;
+			}
+		}
+		return inserted;
+	}
+	
+	/** Sends a snapshot of the population to the listener, if enough time passed since the last one.
+	 * @param generation : int - Generations run.
+	 * @param best : int - Best fitness of the population.
+	 * @param last : boolean - True if it's the last generation, sent anyway.
+	 */
+	private void publish( int generation, int best, boolean last ) {
+		long now = System.nanoTime();
+		if( !last && now - lastSnapshot < snapshotInterval )
+			return;
+		lastSnapshot = now;
+		listener.generation( new Snapshot( generation, best, nets ) );
+	}
+	
+	/** Step of the lifetime simulation over a range of nets, splitting it between the threads. */
+	private static class SimulationStep extends RecursiveAction {
+		
+		/** Serialization ID. */
+		private static final long serialVersionUID = 1L;
+		/** List of nets. */
+		private final List<Net> nets;
+		/** Vertical gradient of the image. */
+		private final GradientMap gradient;
+		/** Range of nets [from, to) and the maximum quantity of nets per task. */
+		private final int from, to, granularity;
+		
+		/** Constructor.
+		 * @param nets : List<Net> - List of nets.
+		 * @param gradient : GradientMap - Vertical gradient of the image.
+		 * @param from : int - First inclusive index.
+		 * @param to : int - Last exclusive index.
+		 * @param granularity : int - Maximum quantity of nets run by a task.
+		 */
+		SimulationStep( List<Net> nets, GradientMap gradient, int from, int to, int granularity ) {
+			this.nets = nets;
+			this.gradient = gradient;
+			this.from = from;
+			this.to = to;
+			this.granularity = granularity;
+		}
+		
+		@Override
+		protected void compute() {
+			if( to - from <= granularity ) {
+				for( int i = from; i < to; i++ )
+					nets.get( i ).step( gradient );
+				return;
+			}
+			int middle = ( from + to ) >>> 1;
+			invokeAll( new SimulationStep( nets, gradient, from, middle, granularity ),
+					new SimulationStep( nets, gradient, middle, to, granularity ) );
+		}
+		
 	}
 }
@@ -0,0 +1,57 @@
+package algorithm;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JDK Flight Recorder event of a generation of the Differential Evolution.
+ * Only recorded while a recording with the event enabled is running.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+@Name( "dedgge.Generation" )
+@Label( "DE Generation" )
+@Category( "DE DGGE" )
+@Description( "Measures of a generation of the Differential Evolution" )
+class GenerationEvent extends Event {
+
+	@Label( "Generation" )
+	int generation;
+
+	@Label( "Generate Time" )
+	@Timespan( Timespan.NANOSECONDS )
+	long generateTime;
+
+	@Label( "Simulation Time" )
+	@Timespan( Timespan.NANOSECONDS )
+	long simulationTime;
+
+	@Label( "Fit Time" )
+	@Timespan( Timespan.NANOSECONDS )
+	long fitTime;
+
+	@Label( "Nets Alive" )
+	int nets;
+
+	@Label( "Free Nodes" )
+	long free;
+
+	@Label( "Ready Nodes" )
+	long ready;
+
+	@Label( "Blocked Nodes" )
+	long blocked;
+
+	@Label( "Waste Nodes" )
+	long waste;
+
+	@Label( "Removed Nodes" )
+	long removed;
+
+	@Label( "Pixel Reads" )
+	long pixelReads;
+
+}
@@ -0,0 +1,129 @@
+package algorithm;
+
+/** Immutable measures of a generation of the Differential Evolution.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public final class GenerationMetrics {
+
+	/** Generation, counted from 1. */
+	private final int generation;
+	/** Durations of the generation of new nets, the lifetime simulation and the population fitting, in nanoseconds. */
+	private final long generateTime, simulationTime, fitTime;
+	/** Nets alive after the lifetime simulation. */
+	private final int nets;
+	/** Live nodes in each state after the lifetime simulation. */
+	private final long free, ready, blocked;
+	/** Nodes turned into WASTE during the lifetime simulation. */
+	private final long waste;
+	/** Nodes removed from the population, WASTE ones and the ones of the nets discarded. */
+	private final long removed;
+	/** Pixel differences read during the lifetime simulation. */
+	private final long pixelReads;
+
+	/** Constructor.
+	 * @param generation : int - Generation, counted from 1.
+	 * @param generateTime : long - Duration of the generation of new nets, in nanoseconds.
+	 * @param simulationTime : long - Duration of the lifetime simulation, in nanoseconds.
+	 * @param fitTime : long - Duration of the population fitting, in nanoseconds.
+	 * @param nets : int - Nets alive after the lifetime simulation.
+	 * @param states : long[] - Live nodes in each state { FREE, READY, BLOCKED }.
+	 * @param waste : long - Nodes turned into WASTE.
+	 * @param removed : long - Nodes removed from the population.
+	 * @param pixelReads : long - Pixel differences read.
+	 */
+	GenerationMetrics( int generation, long generateTime, long simulationTime, long fitTime,
+			int nets, long[] states, long waste, long removed, long pixelReads ) {
+		this.generation = generation;
+		this.generateTime = generateTime;
+		this.simulationTime = simulationTime;
+		this.fitTime = fitTime;
+		this.nets = nets;
+		free = states[ 0 ];
+		ready = states[ 1 ];
+		blocked = states[ 2 ];
+		this.waste = waste;
+		this.removed = removed;
+		this.pixelReads = pixelReads;
+	}
+
+	// Getters.
+
+	/** Returns the generation, counted from 1.
+	 * @return int - Generation.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/** Returns the duration of the generation of new nets, in nanoseconds.
+	 * @return long - Duration of the generation of new nets.
+	 */
+	public long getGenerateTime() {
+		return generateTime;
+	}
+
+	/** Returns the duration of the lifetime simulation, in nanoseconds.
+	 * @return long - Duration of the lifetime simulation.
+	 */
+	public long getSimulationTime() {
+		return simulationTime;
+	}
+
+	/** Returns the duration of the population fitting, in nanoseconds.
+	 * @return long - Duration of the population fitting.
+	 */
+	public long getFitTime() {
+		return fitTime;
+	}
+
+	/** Returns the nets alive after the lifetime simulation.
+	 * @return int - Nets alive.
+	 */
+	public int getNets() {
+		return nets;
+	}
+
+	/** Returns the live FREE nodes after the lifetime simulation.
+	 * @return long - Live FREE nodes.
+	 */
+	public long getFreeNodes() {
+		return free;
+	}
+
+	/** Returns the live READY nodes after the lifetime simulation.
+	 * @return long - Live READY nodes.
+	 */
+	public long getReadyNodes() {
+		return ready;
+	}
+
+	/** Returns the live BLOCKED nodes after the lifetime simulation.
+	 * @return long - Live BLOCKED nodes.
+	 */
+	public long getBlockedNodes() {
+		return blocked;
+	}
+
+	/** Returns the nodes turned into WASTE during the lifetime simulation.
+	 * @return long - Nodes turned into WASTE.
+	 */
+	public long getWasteNodes() {
+		return waste;
+	}
+
+	/** Returns the nodes removed from the population, WASTE ones and the ones of the nets discarded.
+	 * @return long - Nodes removed.
+	 */
+	public long getRemovedNodes() {
+		return removed;
+	}
+
+	/** Returns the pixel differences read during the lifetime simulation.
+	 * @return long - Pixel differences read.
+	 */
+	public long getPixelReads() {
+		return pixelReads;
+	}
+
+}
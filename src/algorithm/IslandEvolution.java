@@ -0,0 +1,263 @@
+package algorithm;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import utils.GradientMap;
+import utils.ImagePlane;
+import utils.ImageUtils;
+import utils.OverlayRenderer;
+import utils.RandomStream;
+import utils.Randomizer;
+
+/** Island model of the Differential Evolution. Several independent populations evolve
+ * over the same image in parallel, each with its own random stream and parameters, and
+ * every some generations the best nets of each island migrate to the next one (ring).
+ * Faint bands missed by a population locked onto the strong ones can be found by another.
+ * The nets of every island are merged at the end.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class IslandEvolution {
+
+	/** Vertical gradient of the image, shared by the islands. */
+	private GradientMap gradient;
+	/** Minimum and maximum vertical pixel value difference of the image { min, max }. */
+	private int[] differences;
+	/** Populations of the islands. Built when the run starts. */
+	private DifferentialEvolution[] islands;
+	/** Merged list of nets of every island. */
+	public ArrayList<Net> nets;
+
+	// Differential Evolution variables.
+
+	/** Population and nodes density percentages. */
+	private double popdensity, ndensity;
+	/** Mutation, selection and sensitiveness percentages of the islands, used cyclically. */
+	private double[] mutation, selection, sensitiveness;
+	/** Maximum dispersion/variation of thickness allowed. */
+	private int dispallow;
+	/** Generations between two migrations. */
+	private int interval;
+	/** Quantity of best nets sent by each island on every migration. */
+	private int migrants;
+	/** Convergence criteria copied for each island. Null for disabling. */
+	private Convergence convergence;
+	/** Random stream where the stream of each island is split from. */
+	private RandomStream random;
+	/** Resistance of the new nets of every island. Negative for the sensitiveness of each island. */
+	private int resistance;
+
+	/** Constructor. Each island takes its mutation, selection and sensitiveness from the
+	 * arrays given, cyclically, so a single value is shared by all of them. Double parameters
+	 * values are between 0 and 1.
+	 * @param plane : ImagePlane - Decoded image plane to will be processed.
+	 * @param differences : int[] - Minimum and maximum vertical pixel value difference { min, max }. Null for calculating them.
+	 * @param islands : int - Quantity of islands.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double[] - Percentages of generating new mutated children from population.
+	 * @param selection : double[] - Percentages of best nets selected from population.
+	 * @param sensitiveness : double[] - Percentages of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public IslandEvolution( ImagePlane plane, int[] differences, int islands, double popdensity, double ndensity,
+			double[] mutation, double[] selection, double[] sensitiveness, int dispallow ) {
+		// Precondition : islands > 0, and mutation, selection and sensitiveness aren't empty.
+		gradient = new GradientMap( plane );
+		this.differences = differences != null ? differences : ImageUtils.verticalDifferenceAnalysis( gradient );
+		this.islands = new DifferentialEvolution[ islands ];
+		this.popdensity = popdensity;
+		this.ndensity = ndensity;
+		this.mutation = mutation;
+		this.selection = selection;
+		this.sensitiveness = sensitiveness;
+		this.dispallow = dispallow;
+		interval = 50;
+		migrants = 2;
+		resistance = -1;
+		nets = new ArrayList<>();
+	}
+
+	/** Constructor from an image, with the same parameters on every island. Double parameters
+	 * values are between 0 and 1.
+	 * @param image : BufferedImage - Image to will be processed.
+	 * @param islands : int - Quantity of islands.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public IslandEvolution( BufferedImage image, int islands, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
+		this( new ImagePlane( image ), null, islands, popdensity, ndensity, new double[] { mutation },
+				new double[] { selection }, new double[] { sensitiveness }, dispallow );
+	}
+
+	// Getters.
+
+	/** Returns the quantity of islands.
+	 * @return int - Quantity of islands.
+	 */
+	public int getIslands() {
+		return islands.length;
+	}
+
+	// Setters.
+
+	/** Sets the migration between the islands.
+	 * @param interval : int - Generations between two migrations.
+	 * @param migrants : int - Quantity of best nets sent by each island on every migration. 0 for isolated islands.
+	 */
+	public void setMigration( int interval, int migrants ) {
+		this.interval = Math.max( 1, interval );
+		this.migrants = migrants;
+	}
+
+	/** Sets the convergence criteria, copied for each island. An island stops when its
+	 * population converges, and the run finishes when every island stopped.
+	 * @param convergence : Convergence - Convergence criteria. Null for running all generations.
+	 */
+	public void setConvergence( Convergence convergence ) {
+		this.convergence = convergence;
+	}
+
+	/** Sets the random stream where the stream of each island is split from.
+	 * @param random : RandomStream - Random stream used only by this evolution.
+	 */
+	public void setRandom( RandomStream random ) {
+		this.random = random;
+	}
+
+	/** Sets the resistance of the new nets of every island, replacing the one given by the
+	 * sensitiveness of each island.
+	 * @param resistance : int - Movement resistance threshold.
+	 */
+	public void setResistance( int resistance ) {
+		this.resistance = resistance;
+	}
+
+	// Main execution methods.
+
+	/** Runs the islands, migrating the best nets between them after each interval, and merges
+	 * their nets. The streams of the islands are split in island order and the migrations
+	 * happen between intervals, so results don't depend on the threads.
+	 * @param generations : int - How many generations will be generated per island.
+	 * @param threads : int - Quantity of islands evolved at the same time.
+	 * @return int - How many generations were generated by the island that ran the most.
+	 */
+	public int run( int generations, int threads ) {
+		if( random == null )
+			random = Randomizer.stream();
+		boolean[] converged = new boolean[ islands.length ];
+		for( int i = 0; i < islands.length; i++ ) {
+			islands[ i ] = new DifferentialEvolution( gradient, differences, popdensity, ndensity, mutation[ i % mutation.length ],
+					selection[ i % selection.length ], sensitiveness[ i % sensitiveness.length ], dispallow );
+			if( convergence != null )
+				islands[ i ].setConvergence( new Convergence( convergence ) );
+			if( resistance >= 0 )
+				islands[ i ].setResistance( resistance );
+			islands[ i ].setRandom( random.split() );
+		}
+		ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, islands.length ) ) );
+		int generated = 0, longest = 0;
+		try {
+			while( generated < generations ) {
+				int epoch = Math.min( interval, generations - generated );
+				// Evolves every island not converged yet during an interval.
+				List<Future<Integer>> results = new ArrayList<>();
+				for( int i = 0; i < islands.length; i++ ) {
+					DifferentialEvolution island = islands[ i ];
+					Callable<Integer> task = () -> island.evolve( epoch );
+					results.add( converged[ i ] ? null : executor.submit( task ) );
+				}
+				boolean running = false;
+				for( int i = 0; i < islands.length; i++ ) {
+					if( results.get( i ) != null ) {
+						int run = results.get( i ).get();
+						longest = Math.max( longest, generated + run );
+						converged[ i ] = run < epoch;
+					}
+					running |= !converged[ i ];
+				}
+				generated += epoch;
+				if( !running )
+					break;
+				migrate( converged );
+			}
+		} catch( InterruptedException exception ) {
+			Thread.currentThread().interrupt();
+		} catch( ExecutionException exception ) {
+			throw new IllegalStateException( "Island evolution failed!", exception.getCause() );
+		} finally {
+			executor.shutdown();
+		}
+		merge();
+		return longest;
+	}
+
+	/** Sends copies of the best nets of each island to the next one. The migrants are chosen
+	 * before any island receives, so the order of the islands doesn't matter.
+	 * @param converged : boolean[] - Islands already converged, which don't receive migrants.
+	 */
+	private void migrate( boolean[] converged ) {
+		if( migrants <= 0 || islands.length < 2 )
+			return;
+		List<List<Net>> emigrants = new ArrayList<>();
+		for( DifferentialEvolution island : islands )
+			emigrants.add( new ArrayList<>( island.best( migrants ) ) );
+		for( int i = 0; i < islands.length; i++ ) {
+			int next = ( i + 1 ) % islands.length;
+			if( !converged[ next ] )
+				islands[ next ].immigrate( emigrants.get( i ) );
+		}
+	}
+
+	/** Merges the nets of every island, from the best one. A net is dropped if it overlaps
+	 * the limits of a better net already merged, like a band found by several islands.
+	 */
+	private void merge() {
+		List<Net> candidates = new ArrayList<>();
+		for( DifferentialEvolution island : islands )
+			for( Net net : island.nets )
+				if( net.size() > 0 )
+					candidates.add( net );
+		// Stable sort, equal nets keep the island order.
+		candidates.sort( Collections.reverseOrder() );
+		boolean[] occupied = new boolean[ gradient.getHeight() ];
+		nets = new ArrayList<>();
+		for( Net net : candidates ) {
+			int[] limits = net.getLimits();
+			boolean free = true;
+			for( int row = limits[ 0 ]; row <= limits[ 1 ] && free; row++ )
+				free = !occupied[ row ];
+			if( !free )
+				continue;
+			for( int row = limits[ 0 ]; row <= limits[ 1 ]; row++ )
+				occupied[ row ] = true;
+			nets.add( net );
+		}
+	}
+
+	/** Renders the merged nets into a transparent layer, without modifying the image.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing.
+	 * @param lineLevel : int - Thickness of the lines drawing.
+	 * @param scale : double - Zoom of the layer. 1 for the size of the image.
+	 * @return BufferedImage - ARGB layer with the nets.
+	 */
+	public BufferedImage overlay( Color color, int nodeLevel, int lineLevel, double scale ) {
+		return OverlayRenderer.render( nets, gradient.getWidth(), gradient.getHeight(), scale, color, nodeLevel, lineLevel );
+	}
+
+}
@@ -0,0 +1,253 @@
+package algorithm;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import utils.ImagePlane;
+import utils.ImageUtils;
+import utils.OverlayRenderer;
+import utils.RandomStream;
+import utils.Randomizer;
+import utils.TiledImageSource;
+
+/** Runs an independent Differential Evolution for each lane of a gel, in parallel.
+ * Lanes are detected from the column projection of the image, and the nets found
+ * in each lane are merged back into image coordinates.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class LaneEvolution {
+
+	/** Image loaded in memory. Null when the lanes are read from an image file. */
+	private BufferedImage image;
+	/** Image file read by lane tiles. Null when the image is loaded in memory. */
+	private TiledImageSource source;
+	/** Memory budget in bytes for a decoded strip of a lane tile. */
+	private long budget;
+	/** Dimensions of the image. */
+	private int width, height;
+	/** Lanes of the gel. Each lane is { left, right }, both inclusive. */
+	private int[][] lanes;
+	/** Merged list of nets of every lane, in image coordinates. */
+	public ArrayList<Net> nets;
+
+	// Differential Evolution variables.
+
+	/** Population density, nodes density, mutation, selection and sensitiveness percentages. */
+	private double popdensity, ndensity, mutation, selection, sensitiveness;
+	/** Maximum dispersion/variation of thickness allowed. */
+	private int dispallow;
+	/** Convergence criteria copied for each lane. Null for disabling. */
+	private Convergence convergence;
+	/** Random stream where the stream of each lane is split from. */
+	private RandomStream random;
+	/** Resistance of the new nets of every lane. Negative for the sensitiveness of each lane. */
+	private int resistance;
+
+	/** Constructor. Detects the lanes of the image. Double parameters values are between 0 and 1.
+	 * @param image : BufferedImage - Image to will be processed.
+	 * @param minWidth : int - Minimum width of a lane in pixels.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public LaneEvolution( BufferedImage image, int minWidth, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
+		this( image, ImageUtils.detectLanes( new ImagePlane( image ), minWidth ), popdensity, ndensity,
+				mutation, selection, sensitiveness, dispallow );
+	}
+
+	/** Constructor. Detects the lanes over a vertically subsampled version of the image file,
+	 * and each lane tile is decoded strip by strip when its evolution starts, so only the
+	 * planes and gradients of the lanes being processed are in memory, never the ones of the
+	 * whole image. Double parameters values are between 0 and 1.
+	 * @param source : TiledImageSource - Image file read by regions.
+	 * @param budget : long - Memory budget in bytes for a decoded strip.
+	 * @param minWidth : int - Minimum width of a lane in pixels.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 * @throws IOException - If the image can't be decoded.
+	 */
+	public LaneEvolution( TiledImageSource source, long budget, int minWidth, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) throws IOException {
+		this( ( BufferedImage ) null, detectLanes( source, budget, minWidth ), popdensity, ndensity,
+				mutation, selection, sensitiveness, dispallow );
+		this.source = source;
+		this.budget = budget;
+		width = source.getWidth();
+		height = source.getHeight();
+	}
+
+	/** Constructor. Uses the lanes given.
+	 * @param image : BufferedImage - Image to will be processed.
+	 * @param lanes : int[][] - Lanes of the gel. Each lane is { left, right }, both inclusive.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public LaneEvolution( BufferedImage image, int[][] lanes, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
+		this.image = image;
+		if( image != null ) {
+			width = image.getWidth();
+			height = image.getHeight();
+		}
+		this.lanes = lanes;
+		this.popdensity = popdensity;
+		this.ndensity = ndensity;
+		this.mutation = mutation;
+		this.selection = selection;
+		this.sensitiveness = sensitiveness;
+		this.dispallow = dispallow;
+		resistance = -1;
+		nets = new ArrayList<>();
+	}
+
+	// Getters.
+
+	/** Returns the lanes of the gel.
+	 * @return int[][] - Array of lanes. Each lane is { left, right }, both inclusive.
+	 */
+	public int[][] getLanes() {
+		return lanes;
+	}
+
+	// Setters.
+
+	/** Sets the convergence criteria, copied for each lane.
+	 * @param convergence : Convergence - Convergence criteria. Null for running all generations.
+	 */
+	public void setConvergence( Convergence convergence ) {
+		this.convergence = convergence;
+	}
+
+	/** Sets the random stream where the stream of each lane is split from.
+	 * @param random : RandomStream - Random stream used only by this evolution.
+	 */
+	public void setRandom( RandomStream random ) {
+		this.random = random;
+	}
+
+	/** Sets the resistance of the new nets of every lane, replacing the one given by the
+	 * sensitiveness over each lane, e.g. calculated from the statistics of the whole gel.
+	 * @param resistance : int - Movement resistance threshold.
+	 */
+	public void setResistance( int resistance ) {
+		this.resistance = resistance;
+	}
+
+	// Main execution methods.
+
+	/** Detects the lanes of an image file. The rows are subsampled until the decoded image
+	 * fits in the memory budget, the column projection doesn't need all of them.
+	 * @param source : TiledImageSource - Image file read by regions.
+	 * @param budget : long - Memory budget in bytes for the decoded image.
+	 * @param minWidth : int - Minimum width of a lane in pixels.
+	 * @return int[][] - Array of lanes. Each lane is { left, right }, both inclusive.
+	 * @throws IOException - If the image can't be decoded.
+	 */
+	private static int[][] detectLanes( TiledImageSource source, long budget, int minWidth ) throws IOException {
+		int rows = source.stripHeight( source.getWidth(), budget );
+		BufferedImage subsampled = source.readSubsampled( 1, ( source.getHeight() + rows - 1 ) / rows );
+		return ImageUtils.detectLanes( new ImagePlane( subsampled ), minWidth );
+	}
+
+	/** Builds the Differential Evolution of a lane over its sub-image, or over its tile
+	 * decoded from the image file.
+	 * @param lane : int[] - Lane { left, right }.
+	 * @param stream : RandomStream - Random stream of the lane.
+	 * @return DifferentialEvolution - Differential Evolution of the lane.
+	 * @throws IOException - If the lane tile can't be decoded.
+	 */
+	private DifferentialEvolution evolution( int[] lane, RandomStream stream ) throws IOException {
+		int width = lane[ 1 ] - lane[ 0 ] + 1;
+		ImagePlane plane = source != null ? new ImagePlane( source, lane[ 0 ], width, budget )
+				: new ImagePlane( image.getSubimage( lane[ 0 ], 0, width, image.getHeight() ) );
+		DifferentialEvolution de = new DifferentialEvolution( plane, popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+		if( convergence != null )
+			de.setConvergence( new Convergence( convergence ) );
+		if( resistance >= 0 )
+			de.setResistance( resistance );
+		de.setRandom( stream );
+		return de;
+	}
+
+	/** Runs the Differential Evolution of every lane and merges the nets. Each lane is
+	 * decoded inside its task, so only the lanes being processed are in memory. The streams
+	 * of the lanes are split in lane order, so results don't depend on the threads.
+	 * @param generations : int - How many generations will be generated per lane.
+	 * @param threads : int - Quantity of lanes processed at the same time.
+	 */
+	public void run( int generations, int threads ) {
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		if( random == null )
+			random = Randomizer.stream();
+		try {
+			// Submits a task per lane.
+			List<Future<ArrayList<Net>>> results = new ArrayList<>();
+			for( int[] lane : lanes ) {
+				RandomStream stream = random.split();
+				results.add( executor.submit( () -> {
+					DifferentialEvolution de = evolution( lane, stream );
+					de.run( generations );
+					return de.nets;
+				} ) );
+			}
+			// Merges the nets of the lanes in image coordinates.
+			nets = new ArrayList<>();
+			for( int i = 0; i < lanes.length; i++ )
+				for( Net net : results.get( i ).get() ) {
+					net.translate( lanes[ i ][ 0 ] );
+					nets.add( net );
+				}
+		} catch( InterruptedException exception ) {
+			Thread.currentThread().interrupt();
+		} catch( ExecutionException exception ) {
+			throw new IllegalStateException( "Lane evolution failed!", exception.getCause() );
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/** Draws the merged nets in the image, through their overlay.
+	 * @param image : BufferedImage - Image.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing.
+	 * @param lineLevel : int - Thickness of the lines drawing.
+	 */
+	public void print( BufferedImage image, Color color, int nodeLevel, int lineLevel ) {
+		Graphics2D graphics = image.createGraphics();
+		graphics.drawImage( overlay( color, nodeLevel, lineLevel, 1 ), 0, 0, null );
+		graphics.dispose();
+	}
+
+	/** Renders the merged nets into a transparent layer, without modifying the image.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing.
+	 * @param lineLevel : int - Thickness of the lines drawing.
+	 * @param scale : double - Zoom of the layer. 1 for the size of the image.
+	 * @return BufferedImage - ARGB layer with the nets.
+	 */
+	public BufferedImage overlay( Color color, int nodeLevel, int lineLevel, double scale ) {
+		return OverlayRenderer.render( nets, width, height, scale, color, nodeLevel, lineLevel );
+	}
+
+}
@@ -0,0 +1,126 @@
+package algorithm;
+
+import java.io.PrintStream;
+
+/** Records the measures of the generations of a Differential Evolution. Each generation
+ * is committed as a JDK Flight Recorder event, and a summary of the last period of
+ * generations is written as text or as a JSON line.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class MetricsRecorder {
+
+	/** Summary formats. NONE only commits the Flight Recorder events. */
+	public enum Format { NONE, TEXT, JSON }
+
+	/** Name of the run, written in the summaries. */
+	private final String name;
+	/** Output of the summaries. */
+	private final PrintStream output;
+	/** Format of the summaries. */
+	private final Format format;
+	/** Generations per summary. */
+	private final int period;
+
+	// Period accumulators.
+
+	/** Generations recorded in the period. */
+	private int generations;
+	/** Durations of the phases in the period, in nanoseconds. */
+	private long generateTime, simulationTime, fitTime;
+	/** Nodes turned into WASTE, nodes removed and pixel differences read in the period. */
+	private long waste, removed, pixelReads;
+	/** Last generation recorded. */
+	private GenerationMetrics last;
+
+	/** Constructor.
+	 * @param name : String - Name of the run, like the name of the image.
+	 * @param output : PrintStream - Output of the summaries.
+	 * @param format : Format - Format of the summaries.
+	 * @param period : int - Generations per summary.
+	 */
+	public MetricsRecorder( String name, PrintStream output, Format format, int period ) {
+		this.name = name;
+		this.output = output;
+		this.format = format;
+		this.period = Math.max( 1, period );
+	}
+
+	/** Records the measures of a generation.
+	 * @param metrics : GenerationMetrics - Measures of the generation.
+	 */
+	public void record( GenerationMetrics metrics ) {
+		GenerationEvent event = new GenerationEvent();
+		if( event.isEnabled() ) {
+			event.generation = metrics.getGeneration();
+			event.generateTime = metrics.getGenerateTime();
+			event.simulationTime = metrics.getSimulationTime();
+			event.fitTime = metrics.getFitTime();
+			event.nets = metrics.getNets();
+			event.free = metrics.getFreeNodes();
+			event.ready = metrics.getReadyNodes();
+			event.blocked = metrics.getBlockedNodes();
+			event.waste = metrics.getWasteNodes();
+			event.removed = metrics.getRemovedNodes();
+			event.pixelReads = metrics.getPixelReads();
+			event.commit();
+		}
+		if( format == Format.NONE )
+			return;
+		generations++;
+		generateTime += metrics.getGenerateTime();
+		simulationTime += metrics.getSimulationTime();
+		fitTime += metrics.getFitTime();
+		waste += metrics.getWasteNodes();
+		removed += metrics.getRemovedNodes();
+		pixelReads += metrics.getPixelReads();
+		last = metrics;
+		if( generations == period )
+			flush();
+	}
+
+	/** Writes the summary of the generations recorded since the last one, if any. */
+	public void flush() {
+		if( generations == 0 || format == Format.NONE )
+			return;
+		if( format == Format.JSON )
+			output.println( "{ \"name\": " + quote( name ) + ", \"generation\": " + last.getGeneration() + ", \"generations\": " + generations
+					+ ", \"generateMillis\": " + millis( generateTime ) + ", \"simulationMillis\": " + millis( simulationTime )
+					+ ", \"fitMillis\": " + millis( fitTime ) + ", \"nets\": " + last.getNets()
+					+ ", \"free\": " + last.getFreeNodes() + ", \"ready\": " + last.getReadyNodes() + ", \"blocked\": " + last.getBlockedNodes()
+					+ ", \"waste\": " + waste + ", \"removed\": " + removed + ", \"pixelReads\": " + pixelReads + " }" );
+		else
+			output.println( name + " generation " + last.getGeneration() + " (" + generations + " generations): generate "
+					+ millis( generateTime ) + " ms, simulation " + millis( simulationTime ) + " ms, fit " + millis( fitTime )
+					+ " ms, " + last.getNets() + " nets, nodes FREE " + last.getFreeNodes() + " READY " + last.getReadyNodes()
+					+ " BLOCKED " + last.getBlockedNodes() + " WASTE " + waste + ", removed " + removed + ", pixel reads " + pixelReads + "." );
+		generations = 0;
+		generateTime = simulationTime = fitTime = 0;
+		waste = removed = pixelReads = 0;
+	}
+
+	/** Quotes a text as a JSON string, escaping the quotes, the backslashes and the control characters.
+	 * @param text : String - Text.
+	 * @return String - JSON string, quotes included.
+	 */
+	private static String quote( String text ) {
+		StringBuilder quoted = new StringBuilder( "\"" );
+		for( char character : text.toCharArray() )
+			if( character == '"' || character == '\\' )
+				quoted.append( '\\' ).append( character );
+			else if( character < 0x20 )
+				quoted.append( String.format( "\\u%04x", ( int ) character ) );
+			else
+				quoted.append( character );
+		return quoted.append( '"' ).toString();
+	}
+
+	/** Converts nanoseconds into milliseconds, rounded to 3 decimals.
+	 * @param nanos : long - Time in nanoseconds.
+	 * @return double - Time in milliseconds.
+	 */
+	private static double millis( long nanos ) {
+		return Math.round( nanos / 1000.0 ) / 1000.0;
+	}
+
+}
@@ -1,21 +1,70 @@
 package algorithm;
 
-import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import utils.GradientMap;
+import utils.ImageUtils;
+import utils.RowOccupancy;
 
 /** Simulates a One Dimensional Movement Net, encapsulating edges by pixel differences.
+ * Nodes are stored as parallel primitive arrays (coordinates, direction and state), so
+ * removing a node is O(1) and iterating them walks the memory linearly. When the net moves
+ * vertically, its active nodes move in fronts: nodes on the same row and state move together,
+ * and each one leaves its front when the front reaches the edge found for it in the edge index.
  * @author Cristopher Alvear Candia.
- * @version 1.9
+ * @version 2.0
  */
-public class Net implements Comparable<Net> {
+public class Net implements Comparable<Net>, Iterable<Node> {
 
-	/** Header of the nodes list. */
-	private Node header;
+	/** Horizontal and vertical components of the nodes. */
+	private int[] xs, ys;
+	/** Directions of the nodes. Values are between 0 and 359 degrees. */
+	private short[] angles;
+	/** States of the nodes. Should be FREE, READY, BLOCKED or WASTE only. */
+	private byte[] states;
+	/** Quantity of stored nodes, including the removed ones not compacted yet. */
+	private int size;
+	/** Quantity of live (not removed) nodes. */
+	private int live;
+	/** Quantity of active (FREE or BLOCKED) nodes. */
+	private int active;
+	/** Worklist of the active nodes. The first active indexes are the active nodes, in any order.
+	 * Not used while the nodes move in fronts. */
+	private int[] worklist;
+	/** Fronts of the active nodes of a vertical net. Null until the next step builds them. */
+	private ArrayList<Front> fronts;
+	/** Vertical one pixel step of the nodes if the net moves vertically, 0 otherwise. */
+	private int dy;
+	/** Sum of the states of the live nodes. Kept up to date as the states change. */
+	private int stateSum;
 	/** Movement resistance threshold. Value between 0 and 255. */
 	private int resistance;
 	/** Upper and lower vertical limits of the width of the net dispersion. */
 	private int top, bottom;
+	/** Limits calculated in the last step, not committed into the occupancy index yet. */
+	private int pendingTop, pendingBottom;
+	/** Upper and lower rows of the READY nodes, which won't move anymore. */
+	private int readyTop, readyBottom;
+	/** Occupancy index of the rows where the nets are located. */
+	private RowOccupancy occupancy;
+	/** If the limits of the net are registered in the occupancy index. */
+	private boolean occupying;
 	/** Maximum variation of thickness allowed. */
 	private int dispallow;
+	/** Pixel differences read and nodes removed since the last time they were taken, for the metrics. */
+	private int reads, removed;
+
+	/** Constants. Horizontal and vertical one pixel step of each direction (degrees). */
+	private static final int[] DX = new int[ 360 ], DY = new int[ 360 ];
+	static {
+		for( int angle = 0; angle < 360; angle++ ) {
+			DX[ angle ] = -( int ) Math.round( ImageUtils.moveHorizontalComponent( angle, 1 ) );
+			DY[ angle ] = -( int ) Math.round( ImageUtils.moveVerticalComponent( angle, 1 ) );
+		}
+	}
 
 	/** Constructor.
 	 * @param row : int - Row where the net will be located.
@@ -25,48 +74,183 @@ public class Net implements Comparable<Net> {
 	 * @param resistance : int - Resistance of movements of the net through image surface.
 	 * 	Values are between 0 and 255. Lower values means more edges recognition capability.
 	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 * @param occupancy : RowOccupancy - Occupancy index shared by the nets of the population.
 	 */
-	public Net( int row, int quantity, int hstep, int direction, int resistance, int dispallow ) {
+	public Net( int row, int quantity, int hstep, int direction, int resistance, int dispallow, RowOccupancy occupancy ) {
 		// Precondition: direction e { 90, 270 }; sensitiveness = ( 0, 255 ).
-		// Header of the nodes.
-		header = new Node( 0, row, direction );
 		this.resistance = resistance;
 		this.dispallow = dispallow;
-		// Generates the nodes left.
-		generate( header, row, quantity, hstep, direction );
+		this.occupancy = occupancy;
+		// Generates the header and the nodes left.
+		generate( row, quantity + 1, hstep, direction );
 		// Calculates the limits (upper and lower limits) for identify the area of the net.
+		top = bottom = pendingTop = pendingBottom = row;
+		occupancy.add( top, bottom );
+		occupying = true;
+	}
+
+	/** Constructor. Places the nodes at the coordinates given, like the nodes of a net found
+	 * at a coarser resolution.
+	 * @param xs : int[] - Horizontal components of the nodes.
+	 * @param ys : int[] - Vertical components of the nodes.
+	 * @param direction : int - Direction of the net movement. Should be 90 or 270 degrees.
+	 * @param resistance : int - Resistance of movements of the net through image surface.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 * @param occupancy : RowOccupancy - Occupancy index shared by the nets of the population.
+	 */
+	public Net( int[] xs, int[] ys, int direction, int resistance, int dispallow, RowOccupancy occupancy ) {
+		// Precondition: xs.length == ys.length > 0.
+		this.resistance = resistance;
+		this.dispallow = dispallow;
+		this.occupancy = occupancy;
+		generate( 0, xs.length, 0, direction );
+		System.arraycopy( xs, 0, this.xs, 0, xs.length );
+		System.arraycopy( ys, 0, this.ys, 0, ys.length );
+		calculateLimits();
+		top = pendingTop;
+		bottom = pendingBottom;
+		occupancy.add( top, bottom );
+		occupying = true;
+	}
+
+	/** Constructor. Copies the nodes, states and limits of a net into another population.
+	 * @param net : Net - Net to copy.
+	 * @param occupancy : RowOccupancy - Occupancy index of the other population.
+	 */
+	private Net( Net net, RowOccupancy occupancy ) {
+		net.compact();
+		xs = Arrays.copyOf( net.xs, net.size );
+		ys = Arrays.copyOf( net.ys, net.size );
+		angles = Arrays.copyOf( net.angles, net.size );
+		states = Arrays.copyOf( net.states, net.size );
+		size = live = net.size;
+		dy = net.dy;
+		index();
+		stateSum = net.stateSum;
+		resistance = net.resistance;
+		dispallow = net.dispallow;
 		calculateLimits();
+		top = net.top;
+		bottom = net.bottom;
+		this.occupancy = occupancy;
+		occupancy.add( top, bottom );
+		occupying = true;
+	}
+
+	/** Returns a copy of the net for another population over the same image, registered
+	 * in its occupancy index, e.g. a migrant between islands.
+	 * @param occupancy : RowOccupancy - Occupancy index of the other population.
+	 * @return Net - Copy of the net.
+	 */
+	Net copy( RowOccupancy occupancy ) {
+		return new Net( this, occupancy );
 	}
 
 	// Nodes generation method.
 
-	/** Recursive method. Generates the nodes of the list.
-	 * @param previous : Node - Header node.
+	/** Generates the nodes of the net from left to right.
+	 * @param row : int - Row where the nodes will be located.
 	 * @param quantity : int - Quantity of nodes.
 	 * @param hstep : int - Horizontal separation of nodes (pixels).
 	 * @param direction : int - Direction of the net movement. Should be 90 or 270 degrees.
-	 * @return Node - Current node from current method level.
 	 */
-	private Node generate( Node previous, int row, int quantity, int hstep, int direction ) {
-		// Base case: last node to be will generated.
-		if( quantity < 2 ) {
-			previous.setNext( new Node( previous.getX() + hstep, row, direction ) );
-			return previous.getNext();
+	private void generate( int row, int quantity, int hstep, int direction ) {
+		xs = new int[ quantity ];
+		ys = new int[ quantity ];
+		angles = new short[ quantity ];
+		states = new byte[ quantity ];
+		for( int i = 0; i < quantity; i++ ) {
+			xs[ i ] = i * hstep;
+			ys[ i ] = row;
+			angles[ i ] = ( short ) ( ( direction % 360 + 360 ) % 360 );
+			states[ i ] = Node.FREE;
 		}
-		// Current node generation.
-		Node current = new Node( previous.getX() + hstep, row, direction );
-		previous.setNext( current );
-		current.setNext( generate( current, row, quantity - 1, hstep, direction ) );
-		return current;
+		size = live = quantity;
+		int angle = ( direction % 360 + 360 ) % 360;
+		dy = DX[ angle ] == 0 ? DY[ angle ] : 0;
+		index();
+	}
+
+	/** Builds the worklist of the active nodes and the limits of the READY nodes from the
+	 * states. The fronts are built again by the next step. */
+	private void index() {
+		worklist = new int[ size ];
+		fronts = null;
+		active = 0;
+		readyTop = Integer.MAX_VALUE;
+		readyBottom = Integer.MIN_VALUE;
+		for( int i = 0; i < size; i++ )
+			if( states[ i ] == Node.FREE || states[ i ] == Node.BLOCKED )
+				worklist[ active++ ] = i;
+			else if( states[ i ] == Node.READY )
+				settle( ys[ i ] );
+	}
+
+	/** Builds the fronts of the active nodes, grouping them by row and state. Nodes out of
+	 * the image are removed, like the step would do.
+	 * @param gradient : GradientMap - Vertical gradient of the image.
+	 */
+	private void buildFronts( GradientMap gradient ) {
+		fronts = new ArrayList<>();
+		// Keys of the active nodes by row and state. Usually every node is on the same row and state.
+		long[] keys = new long[ active ];
+		int quantity = 0;
+		boolean sorted = true;
+		for( int k = 0; k < active; k++ ) {
+			int i = worklist[ k ];
+			if( !ImageUtils.isAValidImageCoordinate( xs[ i ], ys[ i ], gradient.getWidth(), gradient.getHeight() ) ) {
+				remove( i );
+				continue;
+			}
+			keys[ quantity ] = ( long ) ys[ i ] << 40 | ( long ) ( states[ i ] & 0xFF ) << 32 | i;
+			sorted &= quantity == 0 || keys[ quantity ] >>> 32 >= keys[ quantity - 1 ] >>> 32;
+			quantity++;
+		}
+		active = quantity;
+		// Each front is a run of nodes with the same row and state.
+		if( !sorted )
+			Arrays.sort( keys, 0, quantity );
+		Front front = null;
+		for( int k = 0; k < quantity; k++ ) {
+			int i = ( int ) keys[ k ];
+			if( front == null || ys[ i ] != front.row || states[ i ] != front.state )
+				fronts.add( front = new Front( ys[ i ], states[ i ], quantity - k ) );
+			front.nodes[ front.count++ ] = i;
+		}
+	}
+
+	/** Writes the row and state of the nodes of every front into the node arrays. */
+	private void sync() {
+		if( fronts == null )
+			return;
+		for( Front front : fronts )
+			for( int k = front.first; k < front.count; k++ ) {
+				ys[ front.nodes[ k ] ] = front.row;
+				states[ front.nodes[ k ] ] = front.state;
+			}
 	}
 
 	// Getters.
 
-	/** Returns the header of the nodes.
-	 * @return Node - Header of the nodes.
+	/** Returns the quantity of live nodes.
+	 * @return int - Quantity of nodes.
+	 */
+	public int size() {
+		return live;
+	}
+
+	/** Returns the quantity of active nodes, the ones still FREE or BLOCKED.
+	 * @return int - Quantity of active nodes.
 	 */
-	public Node getHeader() {
-		return header;
+	public int getActiveNodes() {
+		return active;
+	}
+
+	/** Returns the resistance of the movements of the net.
+	 * @return int - Movement resistance threshold.
+	 */
+	public int getResistance() {
+		return resistance;
 	}
 
 	/** Returns the upper and lower limit of the net.
@@ -76,34 +260,98 @@ public class Net implements Comparable<Net> {
 		return new int[] { top, bottom };
 	}
 
+	/** Returns an iterator over a view of the live nodes, from left to right.
+	 * Nodes returned are snapshots, changes over them don't affect the net.
+	 * @return Iterator<Node> - Nodes iterator.
+	 */
+	@Override
+	public Iterator<Node> iterator() {
+		compact();
+		return new Iterator<Node>() {
+			/** Index of the next node. */
+			private int i = 0;
+
+			@Override
+			public boolean hasNext() {
+				return i < size;
+			}
+
+			@Override
+			public Node next() {
+				if( i >= size )
+					throw new NoSuchElementException();
+				Node node = new Node( xs[ i ], ys[ i ], angles[ i ], states[ i ] );
+				i++;
+				return node;
+			}
+		};
+	}
+
 	// Setters.
 
-	/** Removes a node from the net.
-	 * @param node : Node - Node to will be removed.
+	/** Moves every node horizontally, e.g. for passing from sub-image to image coordinates.
+	 * @param dx : int - Horizontal distance in pixels.
 	 */
-	public void remove( Node node ) {
-		// Precondition : node <> null; node exists in net.
-		if( node.equals( header ) )
-			header = node.getNext();
-		else
-			for( Node n = header; n != null; n = n.getNext() )
-				if( n.getNext() != null && n.getNext().equals( node ) )
-					n.setNext( node.getNext() );
+	public void translate( int dx ) {
+		for( int i = 0; i < size; i++ )
+			xs[ i ] += dx;
+		// Edges of the fronts were searched in the old columns.
+		sync();
+		index();
+	}
+
+	/** Removes a node from the net. The slot is released on the next compaction.
+	 * @param i : int - Index of the node to will be removed.
+	 */
+	private void remove( int i ) {
+		// Precondition : node isn't removed yet.
+		stateSum -= states[ i ];
+		states[ i ] = Node.WASTE;
+		live--;
+		removed++;
+	}
+
+	/** Removes the limits of the net from the occupancy index. Should be called when
+	 * the net leaves the population.
+	 */
+	public void release() {
+		if( !occupying )
+			return;
+		occupancy.remove( top, bottom );
+		occupying = false;
+	}
+
+	/** Moves the live nodes to the front of the arrays, keeping their order. */
+	private void compact() {
+		sync();
+		if( live == size )
+			return;
+		int j = 0;
+		for( int i = 0; i < size; i++ ) {
+			if( states[ i ] == Node.WASTE )
+				continue;
+			xs[ j ] = xs[ i ];
+			ys[ j ] = ys[ i ];
+			angles[ j ] = angles[ i ];
+			states[ j ] = states[ i ];
+			j++;
+		}
+		size = j;
+		// Indexes changed.
+		index();
 	}
 
 	// Fitness and environment calculations.
 
 	/** Returns the current fitness of the net. It considers the current state
 	 * of nodes, the vertical length of the net and quantity of blocked nodes.
+	 * Sum of the states is maintained by the steps, so it's O(1).
 	 * @return int - Fitness.
 	 */
 	public int fitness() {
-		if( header == null )
+		if( live == 0 )
 			return -255;
-		int fitness = 0;
-		for( Node node = header; node != null; node = node.getNext() )
-			fitness += node.getState();
-		return fitness + thicknessScore( Math.abs( bottom - top ) );
+		return stateSum + thicknessScore( Math.abs( bottom - top ) );
 	}
 
 	/** Returns an arbitrary score for the vertical length.
@@ -117,16 +365,47 @@ public class Net implements Comparable<Net> {
 		return thickness * -2;
 	}
 
-	/** Calculates the limits (top and bottom limits) for identify the vertical length of the net. */
+	/** Calculates the limits (top and bottom limits) for identify the vertical length of the net.
+	 * Limits are kept as pending until they are committed. Only the READY limits and the rows
+	 * of the active nodes (or of their fronts) are read.
+	 */
 	private void calculateLimits() {
-		if( header == null )
+		if( live == 0 )
+			return;
+		pendingTop = readyTop;
+		pendingBottom = readyBottom;
+		if( fronts != null )
+			for( Front front : fronts ) {
+				pendingTop = pendingTop < front.row ? pendingTop : front.row;
+				pendingBottom = pendingBottom > front.row ? pendingBottom : front.row;
+			}
+		else
+			for( int k = 0; k < active; k++ ) {
+				int y = ys[ worklist[ k ] ];
+				pendingTop = pendingTop < y ? pendingTop : y;
+				pendingBottom = pendingBottom > y ? pendingBottom : y;
+			}
+	}
+
+	/** Registers the row of a node that became READY.
+	 * @param y : int - Row of the node.
+	 */
+	private void settle( int y ) {
+		readyTop = readyTop < y ? readyTop : y;
+		readyBottom = readyBottom > y ? readyBottom : y;
+	}
+
+	/** Commits the pending limits, updating the rows that changed in the occupancy index. */
+	public void commit() {
+		// A net without nodes doesn't occupy rows anymore.
+		if( live == 0 ) {
+			release();
 			return;
-		top = header.getY();
-		bottom = header.getY();
-		for( Node node = header.getNext(); node != null; node = node.getNext() ) {
-			top = top < node.getY() ? top : node.getY();
-			bottom = bottom > node.getY() ? bottom : node.getY();
 		}
+		if( pendingTop != top || pendingBottom != bottom )
+			occupancy.move( top, bottom, pendingTop, pendingBottom );
+		top = pendingTop;
+		bottom = pendingBottom;
 	}
 
 	// Comparable overridden method.
@@ -144,24 +423,232 @@ public class Net implements Comparable<Net> {
 		return 0;
 	}
 
-	// Main execution method.
+	// Nodes behavior methods.
 
-	/** Run the behavior of the nodes.
-	 * @param image : BufferedImage - Image.
-	 * @param ranges : int[][] - Array of limits from other nets.
+	/** Changes the position of a node one pixel from origin guided by its direction.
+	 * @param i : int - Index of the node.
+	 * @param gradient : GradientMap - Vertical gradient of the image.
+	 * @return byte - New state of the node.
 	 */
-	public void run( BufferedImage image, int[][] ranges ) {
-		for( Node node = header; node != null; node = node.getNext() ) {
-			// If node is ready, continues with the next.
-			if( node.getState() == Node.READY )
-				continue;
-			// Executes the logic of the node.
-			node.run( image, ranges, resistance );
+	private byte advance( int i, GradientMap gradient ) {
+		int x = xs[ i ], y = ys[ i ];
+		if( !ImageUtils.isAValidImageCoordinate( x, y, gradient.getWidth(), gradient.getHeight() ) )
+			return Node.WASTE;
+		// Calculates the future (next adjacent) coordinates.
+		int xf = x + DX[ angles[ i ] ];
+		int yf = y + DY[ angles[ i ] ];
+		// If the node can't moves (image border or rows of other nets), it's blocked.
+		if( !ImageUtils.isAValidImageCoordinate( xf, yf, gradient.getWidth(), gradient.getHeight() ) || occupancy.isOccupiedByOthers( yf, top, bottom ) )
+			return states[ i ] == Node.BLOCKED ? Node.WASTE : Node.BLOCKED;
+		// Difference between current pixel value and future pixel value by direction.
+		reads++;
+		if( Math.abs( gradient.difference( x, y, xf, yf ) ) > resistance )
+			return Node.READY;
+		// Node will do a movement.
+		xs[ i ] = xf;
+		ys[ i ] = yf;
+		return Node.FREE;
+	}
+
+	// Metrics.
+
+	/** Adds the quantity of live nodes in each state to the counters.
+	 * @param counts : long[] - Counters { FREE, READY, BLOCKED }.
+	 */
+	void countStates( long[] counts ) {
+		sync();
+		for( int i = 0; i < size; i++ )
+			if( states[ i ] == Node.FREE )
+				counts[ 0 ]++;
+			else if( states[ i ] == Node.READY )
+				counts[ 1 ]++;
+			else if( states[ i ] == Node.BLOCKED )
+				counts[ 2 ]++;
+	}
+
+	/** Returns the pixel differences read since the last call, and resets the counter.
+	 * @return int - Pixel differences read.
+	 */
+	int takePixelReads() {
+		int taken = reads;
+		reads = 0;
+		return taken;
+	}
+
+	/** Returns the nodes removed (WASTE) since the last call, and resets the counter.
+	 * @return int - Nodes removed.
+	 */
+	int takeRemovedNodes() {
+		int taken = removed;
+		removed = 0;
+		return taken;
+	}
+
+	// Main execution methods.
+
+	/** Run the behavior of the nodes and commits the new limits of the net.
+	 * @param gradient : GradientMap - Vertical gradient of the image.
+	 */
+	public void run( GradientMap gradient ) {
+		step( gradient );
+		commit();
+	}
+
+	/** Run the behavior of the nodes without modifying the occupancy index, so
+	 * many nets can step at the same time over the same snapshot of the rows.
+	 * New limits should be applied by commit after every net has stepped.
+	 * @param gradient : GradientMap - Vertical gradient of the image.
+	 */
+	public void step( GradientMap gradient ) {
+		if( dy != 0 )
+			stepFronts( gradient );
+		else
+			stepNodes( gradient );
+		calculateLimits();
+	}
+
+	/** Steps every active node one by one. Used when the net doesn't move vertically.
+	 * @param gradient : GradientMap - Vertical gradient of the image.
+	 */
+	private void stepNodes( GradientMap gradient ) {
+		// Only the active nodes are visited, READY and WASTE nodes won't move anymore.
+		for( int k = 0; k < active; ) {
+			int i = worklist[ k ];
+			// Analyzes and advances one step only, for the maximum effectiveness.
+			byte state = advance( i, gradient );
 			// If the node is WASTE, death will come.
-			if( node.getState() == Node.WASTE )
-				remove( node );
+			if( state == Node.WASTE )
+				remove( i );
+			else {
+				stateSum += state - states[ i ];
+				states[ i ] = state;
+			}
+			if( state == Node.READY )
+				settle( ys[ i ] );
+			// Settled nodes leave the worklist, the last active node takes their place.
+			if( state == Node.READY || state == Node.WASTE )
+				worklist[ k ] = worklist[ --active ];
+			else
+				k++;
 		}
-		calculateLimits();
+	}
+
+	/** Steps the fronts of the active nodes, with the same result than stepping the nodes one
+	 * by one. A front is checked once against the image border and the rows of other nets,
+	 * and only the nodes whose edge is on the row of the front are visited.
+	 * @param gradient : GradientMap - Vertical gradient of the image.
+	 */
+	private void stepFronts( GradientMap gradient ) {
+		if( fronts == null )
+			buildFronts( gradient );
+		for( int f = 0; f < fronts.size(); ) {
+			Front front = fronts.get( f );
+			int yf = front.row + dy, quantity = front.count - front.first;
+			// If the nodes can't move (image border or rows of other nets), they are blocked.
+			if( yf < 0 || yf >= gradient.getHeight() || occupancy.isOccupiedByOthers( yf, top, bottom ) ) {
+				if( front.state == Node.BLOCKED ) {
+					// Blocked again, death will come.
+					for( int k = front.first; k < front.count; k++ ) {
+						states[ front.nodes[ k ] ] = Node.BLOCKED;
+						remove( front.nodes[ k ] );
+					}
+					active -= quantity;
+					fronts.remove( f );
+					continue;
+				}
+				stateSum += quantity * ( Node.BLOCKED - front.state );
+				front.state = Node.BLOCKED;
+				f++;
+				continue;
+			}
+			// Searches the edges of the nodes not found yet.
+			if( front.row == front.horizon )
+				front.search( gradient, xs, dy, resistance );
+			// Every node reads the difference with the next row, nodes on their edge are READY.
+			reads += quantity;
+			while( front.first < front.count && front.stops[ front.first ] == front.row ) {
+				int i = front.nodes[ front.first++ ];
+				ys[ i ] = front.row;
+				states[ i ] = Node.READY;
+				stateSum += Node.READY - front.state;
+				settle( front.row );
+				active--;
+			}
+			quantity = front.count - front.first;
+			if( quantity == 0 ) {
+				fronts.remove( f );
+				continue;
+			}
+			// The rest of the nodes do a movement.
+			stateSum += quantity * ( Node.FREE - front.state );
+			front.state = Node.FREE;
+			front.row = yf;
+			f++;
+		}
+	}
+
+	/** Group of active nodes on the same row and in the same state, which move together. */
+	private static class Front {
+
+		/** Rows searched for the edges in the first search. Doubled by every search. */
+		private static final int WINDOW = 16;
+
+		/** Row and state of the nodes. */
+		int row;
+		byte state;
+		/** Nodes of the front, ordered by the distance to their edge, and the rows of their
+		 * edges (-1 if it isn't found yet). */
+		int[] nodes, stops;
+		/** First node still in the front, and quantity of nodes. */
+		int first, count;
+		/** Row where the edges not found yet are searched again, and rows of the next search. */
+		int horizon, window;
+
+		/** Constructor. The edges are searched when the front starts moving.
+		 * @param row : int - Row of the nodes.
+		 * @param state : byte - State of the nodes.
+		 * @param capacity : int - Maximum quantity of nodes.
+		 */
+		Front( int row, byte state, int capacity ) {
+			this.row = horizon = row;
+			this.state = state;
+			nodes = new int[ capacity ];
+			window = WINDOW;
+		}
+
+		/** Searches the edges of the nodes not found yet in the next rows, and orders the
+		 * nodes by the distance to their edge. Nodes without edge found go at the end.
+		 * @param gradient : GradientMap - Vertical gradient of the image.
+		 * @param xs : int[] - Horizontal components of the nodes of the net.
+		 * @param dy : int - Vertical step of the nodes.
+		 * @param resistance : int - Resistance of movements of the net.
+		 */
+		void search( GradientMap gradient, int[] xs, int dy, int resistance ) {
+			int quantity = count - first;
+			int[] found = new int[ quantity ], buckets = new int[ window + 2 ];
+			for( int k = 0; k < quantity; k++ ) {
+				int i = nodes[ first + k ];
+				found[ k ] = stops != null && stops[ first + k ] >= 0 ? stops[ first + k ]
+						: gradient.nextEdge( xs[ i ], row, dy, resistance, window );
+				buckets[ found[ k ] < 0 ? window + 1 : ( found[ k ] - row ) * dy + 1 ]++;
+			}
+			// Counting sort by distance.
+			for( int b = 1; b < buckets.length; b++ )
+				buckets[ b ] += buckets[ b - 1 ];
+			int[] sortedNodes = new int[ quantity ], sortedStops = new int[ quantity ];
+			for( int k = 0; k < quantity; k++ ) {
+				int position = buckets[ found[ k ] < 0 ? window : ( found[ k ] - row ) * dy ]++;
+				sortedNodes[ position ] = nodes[ first + k ];
+				sortedStops[ position ] = found[ k ];
+			}
+			nodes = sortedNodes;
+			stops = sortedStops;
+			first = 0;
+			count = quantity;
+			horizon = row + dy * window;
+			window *= 2;
+		}
+
 	}
 
 }
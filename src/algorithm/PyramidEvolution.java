@@ -0,0 +1,176 @@
+package algorithm;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import utils.ImagePlane;
+import utils.ImageStats;
+import utils.OverlayRenderer;
+import utils.RandomStream;
+import utils.Randomizer;
+
+/** Coarse to fine Differential Evolution over a pyramid of downsampled planes. The whole
+ * evolution runs over the coarsest level only, where nets need less steps to reach the
+ * edges, and the nets found are scaled to seed each finer level, where they are refined
+ * with a short lifetime. Refined nets keep the resistance of their coarse nets, moved to
+ * the vertical differences of each level by their percentile.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class PyramidEvolution {
+
+	/** Scale between two consecutive levels. */
+	private static final int SCALE = 2;
+	/** Steps of the refinement at each finer level. */
+	private static final int REFINEMENT_LIFETIME = 3 * SCALE;
+
+	/** Levels of the pyramid, from the original plane (0) to the coarsest one. */
+	private List<ImagePlane> levels;
+	/** List of nets found, in coordinates of the original plane. */
+	public ArrayList<Net> nets;
+
+	// Differential Evolution variables.
+
+	/** Population density, nodes density, mutation, selection and sensitiveness percentages. */
+	private double popdensity, ndensity, mutation, selection, sensitiveness;
+	/** Maximum dispersion/variation of thickness allowed. */
+	private int dispallow;
+	/** Convergence criteria of the coarsest level. Null for disabling. */
+	private Convergence convergence;
+	/** Random stream where the stream of each level is split from. */
+	private RandomStream random;
+	/** Fraction of the vertical differences treated as edges by every level. 0 for the sensitiveness. */
+	private double edges;
+
+	/** Constructor. Builds the pyramid halving the plane while the coarsest level is at least
+	 * as high as the minimum height given. Double parameters values are between 0 and 1.
+	 * @param plane : ImagePlane - Decoded image plane to will be processed.
+	 * @param minHeight : int - Minimum height of the coarsest level in pixels.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public PyramidEvolution( ImagePlane plane, int minHeight, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
+		this.popdensity = popdensity;
+		this.ndensity = ndensity;
+		this.mutation = mutation;
+		this.selection = selection;
+		this.sensitiveness = sensitiveness;
+		this.dispallow = dispallow;
+		nets = new ArrayList<>();
+		levels = new ArrayList<>();
+		levels.add( plane );
+		while( plane.getHeight() / SCALE >= minHeight && plane.getWidth() / SCALE > 0 )
+			levels.add( plane = plane.downsample() );
+	}
+
+	/** Constructor from an image. Double parameters values are between 0 and 1.
+	 * @param image : BufferedImage - Image to will be processed.
+	 * @param minHeight : int - Minimum height of the coarsest level in pixels.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 */
+	public PyramidEvolution( BufferedImage image, int minHeight, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow ) {
+		this( new ImagePlane( image ), minHeight, popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+	}
+
+	// Getters.
+
+	/** Returns the quantity of levels of the pyramid, including the original plane.
+	 * @return int - Quantity of levels.
+	 */
+	public int getLevels() {
+		return levels.size();
+	}
+
+	// Setters.
+
+	/** Sets the convergence criteria of the evolution over the coarsest level.
+	 * @param convergence : Convergence - Convergence criteria. Null for running all generations.
+	 */
+	public void setConvergence( Convergence convergence ) {
+		this.convergence = convergence;
+	}
+
+	/** Sets the random stream where the stream of each level is split from.
+	 * @param random : RandomStream - Random stream used only by this evolution.
+	 */
+	public void setRandom( RandomStream random ) {
+		this.random = random;
+	}
+
+	/** Sets the resistance of the new nets from the distribution of the vertical differences,
+	 * replacing the one given by the sensitiveness. Each level takes the percentile of its own
+	 * differences, so the original plane uses the one of the whole image.
+	 * @param edges : double - Fraction of the vertical differences treated as edges, between 0 and 1. 0 for disabling.
+	 */
+	public void setEdges( double edges ) {
+		this.edges = edges;
+	}
+
+	// Main execution methods.
+
+	/** Runs the evolution over the coarsest level, and refines the nets found level by level
+	 * up to the original plane.
+	 * @param generations : int - How many generations will be generated over the coarsest level.
+	 * @return int - How many generations were generated, less than requested if converged.
+	 */
+	public int run( int generations ) {
+		if( random == null )
+			random = Randomizer.stream();
+		// Full evolution over the coarsest level.
+		ImagePlane coarsest = levels.get( levels.size() - 1 );
+		ImageStats stats = new ImageStats( coarsest );
+		DifferentialEvolution de = evolution( coarsest, stats );
+		de.setConvergence( convergence );
+		int generated = de.run( generations );
+		// Refinement of the nets over each finer level.
+		for( int level = levels.size() - 2; level >= 0; level-- ) {
+			ImageStats finerStats = new ImageStats( levels.get( level ) );
+			DifferentialEvolution finer = evolution( levels.get( level ), finerStats );
+			finer.refine( de.nets, SCALE, REFINEMENT_LIFETIME, stats, finerStats );
+			de = finer;
+			stats = finerStats;
+		}
+		nets = de.nets;
+		return generated;
+	}
+
+	/** Builds the Differential Evolution of a level.
+	 * @param plane : ImagePlane - Plane of the level.
+	 * @param stats : ImageStats - Statistics of the level.
+	 * @return DifferentialEvolution - Differential Evolution of the level.
+	 */
+	private DifferentialEvolution evolution( ImagePlane plane, ImageStats stats ) {
+		DifferentialEvolution de = new DifferentialEvolution( plane, stats.getDifferences(), popdensity, ndensity,
+				mutation, selection, sensitiveness, dispallow );
+		if( edges > 0 )
+			de.setEdges( stats, edges );
+		de.setRandom( random.split() );
+		return de;
+	}
+
+	/** Renders the nets into a transparent layer, without modifying the image.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing.
+	 * @param lineLevel : int - Thickness of the lines drawing.
+	 * @param scale : double - Zoom of the layer. 1 for the size of the image.
+	 * @return BufferedImage - ARGB layer with the nets.
+	 */
+	public BufferedImage overlay( Color color, int nodeLevel, int lineLevel, double scale ) {
+		ImagePlane plane = levels.get( 0 );
+		return OverlayRenderer.render( nets, plane.getWidth(), plane.getHeight(), scale, color, nodeLevel, lineLevel );
+	}
+
+}
@@ -0,0 +1,71 @@
+package algorithm;
+
+import java.util.List;
+
+/** Immutable copy of the population of a generation, for showing it while the
+ * Differential Evolution goes on. Only the polylines of the nets are copied.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public final class Snapshot {
+
+	/** Generation of the population, counted from 1. */
+	private final int generation;
+	/** Best fitness of the population. */
+	private final int bestFitness;
+	/** Polylines of the nets. Each one is { x0, y0, x1, y1, ... }. */
+	private final int[][] polylines;
+
+	/** Constructor. Copies the polylines of the nets.
+	 * @param generation : int - Generation of the population.
+	 * @param bestFitness : int - Best fitness of the population.
+	 * @param nets : List<Net> - Population.
+	 */
+	Snapshot( int generation, int bestFitness, List<Net> nets ) {
+		this.generation = generation;
+		this.bestFitness = bestFitness;
+		polylines = new int[ nets.size() ][];
+		for( int i = 0; i < polylines.length; i++ ) {
+			Net net = nets.get( i );
+			int[] polyline = new int[ net.size() * 2 ];
+			int k = 0;
+			for( Node node : net ) {
+				polyline[ k++ ] = node.getX();
+				polyline[ k++ ] = node.getY();
+			}
+			polylines[ i ] = polyline;
+		}
+	}
+
+	// Getters.
+
+	/** Returns the generation of the population.
+	 * @return int - Generation, counted from 1.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/** Returns the best fitness of the population.
+	 * @return int - Best fitness.
+	 */
+	public int getBestFitness() {
+		return bestFitness;
+	}
+
+	/** Returns the quantity of nets.
+	 * @return int - Size of the population.
+	 */
+	public int size() {
+		return polylines.length;
+	}
+
+	/** Returns the polyline of a net.
+	 * @param net : int - Index of the net.
+	 * @return int[] - Copy of the polyline { x0, y0, x1, y1, ... }.
+	 */
+	public int[] getPolyline( int net ) {
+		return polylines[ net ].clone();
+	}
+
+}
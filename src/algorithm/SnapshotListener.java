@@ -0,0 +1,15 @@
+package algorithm;
+
+/** Receives the population snapshots of a Differential Evolution while it runs.
+ * Called from the simulation thread, so it should return quickly and never block.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public interface SnapshotListener {
+
+	/** Receives the snapshot of a generation.
+	 * @param snapshot : Snapshot - Immutable population snapshot.
+	 */
+	void generation( Snapshot snapshot );
+
+}
@@ -0,0 +1,445 @@
+package main;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import algorithm.Convergence;
+import algorithm.DifferentialEvolution;
+import algorithm.IslandEvolution;
+import algorithm.LaneEvolution;
+import algorithm.MetricsRecorder;
+import algorithm.Net;
+import algorithm.Node;
+import algorithm.PyramidEvolution;
+import utils.Console;
+import utils.HeapMonitor;
+import utils.ImagePlane;
+import utils.ImageStats;
+import utils.ImageUtils;
+import utils.OverlayRenderer;
+import utils.PlaneCache;
+import utils.RandomStream;
+import utils.Randomizer;
+import utils.TiledImageSource;
+import utils.Timer;
+
+/** Headless batch processing of gel images. Processes a directory (or glob) of images
+ * concurrently, each with its own Differential Evolution, and writes the band polylines.
+ * [info] USAGE: Batch <directory|glob> [option=value ...]
+ * 	out : output directory. Default "output".
+ * 	format : csv or json. Default csv.
+ * 	overlay : true for writing a PNG of the image with the nets over it, layer for writing
+ * 		only the transparent layer of the nets (the image isn't decoded again). Default false.
+ * 	threads : quantity of images processed at the same time. Default available processors.
+ * 	budget : memory budget in megabytes for a decoded strip. When given, images are decoded by
+ * 		strips instead of at once (except for the overlay). Only the decoding is bounded, the
+ * 		plane and gradient are still whole images, unless lanes are evolved. Default 0, whole images.
+ * 	lanes : true for evolving each lane separately, read as a tile. Not with pyramid or islands. Default false.
+ * 	cache : directory of the decoded planes cache, reused by later runs. Not with lanes. Default none.
+ * 	pyramid : minimum height in pixels of the coarsest level of a coarse to fine evolution,
+ * 		where the whole evolution runs before refining the nets level by level. Not with islands or
+ * 		lanes. Default 0, disabled.
+ * 	islands : quantity of populations evolved over each image, exchanging their best nets. The
+ * 		islands of an image share the processors left by the images processed at the same time.
+ * 		Not with pyramid or lanes. Default 1, a single population.
+ * 	migration : generations between two migrations of the islands. Default 50.
+ * 	migrants : best nets sent by each island on every migration. Default 2.
+ * 	edges : fraction of the vertical pixel differences of each image treated as edges. The
+ * 		resistance of the nets is the percentile of the differences instead of the one given by
+ * 		the sensitiveness, the same for every lane or island. Not with lanes read by strips
+ * 		(budget). Default 0, disabled.
+ * 	seed : seed of the random streams, for reproducible results. Default random.
+ * 	metrics : text or json for writing a summary of the generations of each image, jfr for
+ * 		only committing Flight Recorder events. Only for a single population, not with lanes,
+ * 		pyramid or islands. Default none.
+ * 	metricsperiod : generations per summary. Default 100.
+ * 	generations, popdensity, ndensity, mutation, selection, sensitiveness, dispallow :
+ * 		Differential Evolution parameters.
+ * 	plateau, stability, settled : convergence criteria. When any of them is given, the evolution
+ * 		stops early, the other ones take their defaults (500, 200, 0). Default none, all generations.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class Batch {
+
+	/** Extensions of the images processed when a directory is given. */
+	private static final String IMAGES_GLOB = "*.{bmp,jpg,jpeg,png,gif,BMP,JPG,JPEG,PNG,GIF}";
+	/** Names of the options of the batch. */
+	private static final List<String> OPTIONS = Arrays.asList( "out", "format", "overlay", "threads", "budget", "lanes", "cache",
+			"pyramid", "islands", "migration", "migrants", "edges", "seed", "metrics", "metricsperiod", "generations", "popdensity",
+			"ndensity", "mutation", "selection", "sensitiveness", "dispallow", "plateau", "stability", "settled" );
+
+	/** Options of the batch. */
+	private Map<String, String> options;
+	/** Cache of decoded planes. Null for decoding every image. */
+	private PlaneCache cache;
+	/** Random stream where the stream of each image is split from. */
+	private RandomStream random;
+	/** Highest peak heap of the images measured one by one, in bytes. */
+	private long peakHeap;
+
+	/** Constructor.
+	 * @param options : Map<String, String> - Options of the batch.
+	 */
+	private Batch( Map<String, String> options ) {
+		this.options = options;
+	}
+
+	/* Main execution method. */
+	public static void main( String[] args ) {
+		System.setProperty( "java.awt.headless", "true" );
+		if( args.length == 0 ) {
+			Console.displayError( "Usage: Batch <directory|glob> [option=value ...]" );
+			return;
+		}
+		// Parses the options.
+		Map<String, String> options = new HashMap<>();
+		for( int i = 1; i < args.length; i++ ) {
+			String[] option = args[ i ].split( "=", 2 );
+			options.put( option[ 0 ], option.length > 1 ? option[ 1 ] : "true" );
+		}
+		try {
+			new Batch( options ).process( listImages( args[ 0 ] ) );
+		} catch( IOException exception ) {
+			Console.displayError( "Batch failed! " + exception.getMessage() );
+		}
+	}
+
+	// Options.
+
+	/** Returns a text option.
+	 * @param name : String - Name of the option.
+	 * @param fallback : String - Default value.
+	 * @return String - Value of the option.
+	 */
+	private String option( String name, String fallback ) {
+		return options.getOrDefault( name, fallback );
+	}
+
+	/** Returns a numeric option.
+	 * @param name : String - Name of the option.
+	 * @param fallback : double - Default value.
+	 * @return double - Value of the option.
+	 */
+	private double option( String name, double fallback ) {
+		return Double.parseDouble( option( name, String.valueOf( fallback ) ) );
+	}
+
+	/** Returns the first unknown option or combination of options not supported together, if any.
+	 * @return String - Description of the option or combination. Null if every option is supported.
+	 */
+	private String unsupportedOptions() {
+		for( String name : options.keySet() )
+			if( !OPTIONS.contains( name ) )
+				return "unknown option " + name + ".";
+		boolean lanes = Boolean.parseBoolean( option( "lanes", "false" ) );
+		boolean pyramid = option( "pyramid", 0 ) > 0, islands = option( "islands", 1 ) > 1;
+		if( options.containsKey( "metrics" ) && !option( "metrics", "text" ).toLowerCase().matches( "text|json|jfr" ) )
+			return "metrics must be text, json or jfr, not " + option( "metrics", "text" ) + ".";
+		if( options.containsKey( "metrics" ) && ( lanes || pyramid || islands ) )
+			return "metrics is only supported by a single population, not with lanes, pyramid or islands.";
+		if( options.containsKey( "cache" ) && lanes )
+			return "cache is not supported with lanes.";
+		if( pyramid && islands )
+			return "pyramid and islands can't be combined.";
+		if( lanes && ( pyramid || islands ) )
+			return "lanes can't be combined with pyramid or islands.";
+		if( option( "edges", 0 ) > 0 && lanes && option( "budget", 0 ) > 0 )
+			return "edges is not supported with lanes read by strips (budget).";
+		return null;
+	}
+
+	// Images listing.
+
+	/** Lists the images of a directory, or the files matching a glob.
+	 * @param pattern : String - Directory or glob, like "gels/*.jpg".
+	 * @return List<Path> - Paths of the images.
+	 * @throws IOException - If the directory can't be read.
+	 */
+	private static List<Path> listImages( String pattern ) throws IOException {
+		Path directory = Paths.get( pattern );
+		String glob = IMAGES_GLOB;
+		// If it isn't a directory, the last element of the path is the glob.
+		if( !Files.isDirectory( directory ) ) {
+			glob = directory.getFileName().toString();
+			directory = directory.getParent() != null ? directory.getParent() : Paths.get( "." );
+		}
+		List<Path> images = new ArrayList<>();
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher( "glob:" + glob );
+		try( DirectoryStream<Path> stream = Files.newDirectoryStream( directory ) ) {
+			for( Path path : stream )
+				if( Files.isRegularFile( path ) && matcher.matches( path.getFileName() ) )
+					images.add( path );
+		}
+		images.sort( null );
+		return images;
+	}
+
+	// Processing.
+
+	/** Processes the images on a bounded pool of workers and reports the throughput.
+	 * @param images : List<Path> - Paths of the images.
+	 * @throws IOException - If the output directory can't be created.
+	 */
+	private void process( List<Path> images ) throws IOException {
+		String unsupported = unsupportedOptions();
+		if( unsupported != null ) {
+			Console.displayError( "Unsupported options: " + unsupported );
+			return;
+		}
+		Path output = Files.createDirectories( Paths.get( option( "out", "output" ) ) );
+		if( options.containsKey( "cache" ) )
+			cache = new PlaneCache( Paths.get( option( "cache", "cache" ) ) );
+		random = options.containsKey( "seed" ) ? new RandomStream( Long.parseLong( option( "seed", "0" ) ) ) : Randomizer.stream();
+		int threads = ( int ) option( "threads", Runtime.getRuntime().availableProcessors() );
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		HeapMonitor.reset();
+		Timer timer = new Timer();
+		timer.start();
+		// Submits a task per image, with its own stream split in images order.
+		List<Future<Boolean>> results = new ArrayList<>();
+		for( Path image : images ) {
+			RandomStream stream = random.split();
+			results.add( executor.submit( () -> process( image, output, stream ) ) );
+		}
+		// Waits for the tasks. A failed image is counted as not processed, the other ones go on.
+		int processed = 0;
+		try {
+			for( int i = 0; i < results.size(); i++ )
+				try {
+					processed += results.get( i ).get() ? 1 : 0;
+				} catch( ExecutionException exception ) {
+					Console.displayError( "Image failed: " + images.get( i ) + " " + exception.getCause() );
+				}
+		} catch( InterruptedException exception ) {
+			Console.displayError( "Batch interrupted!" );
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+		timer.stop();
+		Console.displayInfo( processed + " of " + images.size() + " images processed in " + timer.getTimeInSeconds() + " s." );
+		Console.displayInfo( "Throughput: " + processed / timer.getTimeInMinutes() + " images per minute." );
+		// Each image resets the peak when they are processed one by one, so the highest one is kept.
+		long peak = Math.max( peakHeap, HeapMonitor.getPeak() );
+		Console.displayInfo( "Peak heap of the process: " + Math.round( ( double ) peak / ( 1024 * 1024 ) ) + " MB." );
+	}
+
+	/** Processes an image and writes its results.
+	 * @param path : Path - Path of the image.
+	 * @param output : Path - Output directory.
+	 * @param stream : RandomStream - Random stream of the image.
+	 * @return boolean - True if the image was processed, False otherwise.
+	 */
+	private boolean process( Path path, Path output, RandomStream stream ) {
+		// Peak heap is only measured by image when images are processed one by one, otherwise it's shared.
+		boolean sequential = ( int ) option( "threads", Runtime.getRuntime().availableProcessors() ) == 1;
+		if( sequential )
+			HeapMonitor.reset();
+		List<Net> nets;
+		try {
+			nets = evolve( path, stream );
+		} catch( IOException exception ) {
+			Console.displayError( "Image skipped: " + path );
+			return false;
+		} catch( RuntimeException exception ) {
+			Console.displayError( "Image failed: " + path + " " + exception.getMessage() );
+			return false;
+		}
+		// Writes the polylines of the nets, and the overlay if requested.
+		String name = path.getFileName().toString().replaceFirst( "\\.[^.]*$", "" );
+		try {
+			String format = option( "format", "csv" );
+			if( format.equals( "json" ) )
+				writeJSON( nets, output.resolve( name + ".json" ).toFile() );
+			else
+				writeCSV( nets, output.resolve( name + ".csv" ).toFile() );
+			String overlay = option( "overlay", "false" );
+			if( overlay.equals( "layer" ) ) {
+				int width, height;
+				try( TiledImageSource source = new TiledImageSource( path.toFile() ) ) {
+					width = source.getWidth();
+					height = source.getHeight();
+				}
+				ImageIO.write( OverlayRenderer.render( nets, width, height, 1, Color.WHITE, 0, -1 ), "png", output.resolve( name + ".png" ).toFile() );
+			} else if( Boolean.parseBoolean( overlay ) ) {
+				BufferedImage image = ImageUtils.loadImage( path.toString() );
+				BufferedImage layer = OverlayRenderer.render( nets, image.getWidth(), image.getHeight(), 1, Color.WHITE, 0, -1 );
+				ImageIO.write( OverlayRenderer.compose( image, layer ), "png", output.resolve( name + ".png" ).toFile() );
+			}
+		} catch( IOException exception ) {
+			Console.displayError( "Results writing failed: " + path );
+			return false;
+		}
+		if( sequential )
+			peakHeap = Math.max( peakHeap, HeapMonitor.getPeak() );
+		Console.displayInfo( path.getFileName() + ": " + nets.size() + " bands" + ( sequential ? ", peak heap " + Math.round( HeapMonitor.getPeakInMegabytes() ) + " MB." : "." ) );
+		return true;
+	}
+
+	/** Runs the Differential Evolution of an image. With a memory budget the image is read
+	 * by strips, or by lane tiles, instead of being decoded at once.
+	 * @param path : Path - Path of the image.
+	 * @param stream : RandomStream - Random stream of the image.
+	 * @return List<Net> - Nets found, in image coordinates.
+	 * @throws IOException - If the image can't be decoded.
+	 */
+	private List<Net> evolve( Path path, RandomStream stream ) throws IOException {
+		double popdensity = option( "popdensity", 0.1 ), ndensity = option( "ndensity", 0.3 ), mutation = option( "mutation", 0.1 );
+		double selection = option( "selection", 0.4 ), sensitiveness = option( "sensitiveness", 0.6 );
+		int dispallow = ( int ) option( "dispallow", 2 ), generations = ( int ) option( "generations", 9999 );
+		// Stops early only if a convergence criterion is given, otherwise runs all generations.
+		Convergence convergence = options.containsKey( "plateau" ) || options.containsKey( "stability" ) || options.containsKey( "settled" )
+				? new Convergence( ( int ) option( "plateau", 500 ), ( int ) option( "stability", 200 ), option( "settled", 0 ) ) : null;
+		long budget = ( long ) ( option( "budget", 0 ) * 1024 * 1024 );
+		boolean lanes = Boolean.parseBoolean( option( "lanes", "false" ) );
+		double edges = option( "edges", 0 );
+		ImagePlane plane;
+		int[] differences = null;
+		if( cache != null && !lanes ) {
+			// Maps the decoded plane and its statistics from the cache.
+			PlaneCache.Entry entry = cache.load( path, budget );
+			plane = entry.getPlane();
+			differences = entry.getDifferences();
+		} else if( budget > 0 ) {
+			// Decodes the image by strips into the plane, the whole image is never a BufferedImage.
+			try( TiledImageSource source = new TiledImageSource( path.toFile() ) ) {
+				if( lanes )
+					return evolve( new LaneEvolution( source, budget, Math.max( 4, source.getWidth() / 50 ), popdensity, ndensity,
+							mutation, selection, sensitiveness, dispallow ), convergence, generations, stream );
+				plane = new ImagePlane( source, 0, source.getWidth(), budget );
+			}
+		} else {
+			BufferedImage image = ImageUtils.loadImage( path.toString() );
+			if( image == null )
+				throw new IOException( "Image can't be read: " + path );
+			if( lanes && edges > 0 ) {
+				// Detects the lanes and the resistance of the whole gel from the same pass over the image.
+				ImageStats stats = new ImageStats( image );
+				LaneEvolution le = new LaneEvolution( image, ImageUtils.detectLanes( stats, Math.max( 4, image.getWidth() / 50 ) ), popdensity, ndensity,
+						mutation, selection, sensitiveness, dispallow );
+				le.setResistance( stats.resistance( edges ) );
+				return evolve( le, convergence, generations, stream );
+			}
+			if( lanes )
+				return evolve( new LaneEvolution( image, Math.max( 4, image.getWidth() / 50 ), popdensity, ndensity,
+						mutation, selection, sensitiveness, dispallow ), convergence, generations, stream );
+			plane = new ImagePlane( image );
+		}
+		int minHeight = ( int ) option( "pyramid", 0 );
+		if( minHeight > 0 ) {
+			// Evolves a downsampled level and refines the nets up to the whole plane.
+			PyramidEvolution pe = new PyramidEvolution( plane, minHeight, popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+			pe.setEdges( edges );
+			pe.setConvergence( convergence );
+			pe.setRandom( stream );
+			pe.run( generations );
+			return pe.nets;
+		}
+		// The resistance follows the distribution of the vertical differences, if requested.
+		ImageStats stats = edges > 0 ? new ImageStats( plane ) : null;
+		if( stats != null )
+			differences = stats.getDifferences();
+		int islands = ( int ) option( "islands", 1 );
+		if( islands > 1 ) {
+			// Evolves several populations over the image, migrating the best nets between them.
+			IslandEvolution ie = new IslandEvolution( plane, differences, islands, popdensity, ndensity,
+					new double[] { mutation }, new double[] { selection }, new double[] { sensitiveness }, dispallow );
+			ie.setMigration( ( int ) option( "migration", 50 ), ( int ) option( "migrants", 2 ) );
+			if( stats != null )
+				ie.setResistance( stats.resistance( edges ) );
+			ie.setConvergence( convergence );
+			ie.setRandom( stream );
+			// The islands only use the processors left by the images processed at the same time.
+			int threads = ( int ) option( "threads", Runtime.getRuntime().availableProcessors() );
+			ie.run( generations, Math.max( 1, Runtime.getRuntime().availableProcessors() / threads ) );
+			return ie.nets;
+		}
+		DifferentialEvolution de = new DifferentialEvolution( plane, differences, popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+		de.setConvergence( convergence );
+		if( stats != null )
+			de.setEdges( stats, edges );
+		de.setRandom( stream );
+		if( options.containsKey( "metrics" ) )
+			de.setMetrics( new MetricsRecorder( path.getFileName().toString(), System.out,
+					MetricsRecorder.Format.valueOf( option( "metrics", "text" ).toUpperCase().replace( "JFR", "NONE" ) ),
+					( int ) option( "metricsperiod", 100 ) ) );
+		de.run( generations );
+		return de.nets;
+	}
+
+	/** Runs the evolution of the lanes one by one, so only one lane is in memory.
+	 * @param le : LaneEvolution - Evolution of the lanes.
+	 * @param convergence : Convergence - Convergence criteria.
+	 * @param generations : int - How many generations will be generated per lane.
+	 * @param stream : RandomStream - Random stream of the image.
+	 * @return List<Net> - Nets found, in image coordinates.
+	 */
+	private static List<Net> evolve( LaneEvolution le, Convergence convergence, int generations, RandomStream stream ) {
+		le.setConvergence( convergence );
+		le.setRandom( stream );
+		le.run( generations, 1 );
+		return le.nets;
+	}
+
+	// Results writing.
+
+	/** Writes the node coordinates of the nets as CSV, one row per node.
+	 * @param nets : List<Net> - Nets.
+	 * @param file : File - Output file.
+	 * @throws IOException - If the file can't be written.
+	 */
+	private static void writeCSV( List<Net> nets, File file ) throws IOException {
+		try( PrintWriter writer = new PrintWriter( file, "UTF-8" ) ) {
+			writer.println( "net,fitness,x,y" );
+			int i = 0;
+			for( Net net : nets ) {
+				for( Node node : net )
+					writer.println( i + "," + net.fitness() + "," + node.getX() + "," + node.getY() );
+				i++;
+			}
+		}
+	}
+
+	/** Writes the nets as JSON, an array of bands with their polylines.
+	 * @param nets : List<Net> - Nets.
+	 * @param file : File - Output file.
+	 * @throws IOException - If the file can't be written.
+	 */
+	private static void writeJSON( List<Net> nets, File file ) throws IOException {
+		try( PrintWriter writer = new PrintWriter( file, "UTF-8" ) ) {
+			writer.println( "[" );
+			for( int i = 0; i < nets.size(); i++ ) {
+				Net net = nets.get( i );
+				int[] limits = net.getLimits();
+				StringBuilder polyline = new StringBuilder();
+				for( Node node : net )
+					polyline.append( polyline.length() > 0 ? ", " : "" ).append( "[" ).append( node.getX() ).append( ", " ).append( node.getY() ).append( "]" );
+				writer.println( "\t{ \"fitness\": " + net.fitness() + ", \"top\": " + limits[ 0 ] + ", \"bottom\": " + limits[ 1 ]
+						+ ", \"nodes\": [ " + polyline + " ] }" + ( i < nets.size() - 1 ? "," : "" ) );
+			}
+			writer.println( "]" );
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package main;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.ImageIcon;
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+import algorithm.Snapshot;
+import algorithm.SnapshotListener;
+import utils.OverlayRenderer;
+import utils.Screen;
+
+/** GUI window that shows the population of a running Differential Evolution.
+ * Snapshots are rendered on the event dispatch thread. The simulation thread only
+ * stores the last snapshot, so it never waits for painting, and the snapshots that
+ * arrive while the window is still painting are dropped.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+class LiveView extends JFrame implements SnapshotListener {
+	
+	/** Serialization ID. */
+	private static final long serialVersionUID = 1L;
+	
+	/** Image analysed, under the nets. */
+	private final BufferedImage image;
+	/** Component where the image is drawn. */
+	private final Picture picture;
+	/** Last snapshot not painted yet. Null if there isn't one. */
+	private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+	
+	/** Constructor. Shows the image in the center of the screen.
+	 * @param image : BufferedImage - Image analysed. Isn't modified.
+	 */
+	LiveView( BufferedImage image ) {
+		this.image = image;
+		int[] resolution = Screen.normalizeResolution( image.getWidth(), image.getHeight() );
+		int[] windowPos = Screen.calculateCenterScreenPosition( resolution[0], resolution[1] );
+		setTitle( "DIP DE DGGE Algorithm - Live View" );
+		setLocation( windowPos[0], windowPos[1] );
+		setSize( resolution[0], resolution[1] );
+		setIconImage( new ImageIcon( "resources/icon.png" ).getImage() );
+		setDefaultCloseOperation( JFrame.EXIT_ON_CLOSE );
+		picture = new Picture( image );
+		add( picture );
+		setVisible( true );
+	}
+	
+	/** Stores the snapshot, and schedules its painting if none is scheduled. */
+	@Override
+	public void generation( Snapshot snapshot ) {
+		if( pending.getAndSet( snapshot ) == null )
+			SwingUtilities.invokeLater( this::paintPending );
+	}
+	
+	/** Paints the last snapshot stored. Runs on the event dispatch thread. */
+	private void paintPending() {
+		Snapshot snapshot = pending.getAndSet( null );
+		if( snapshot == null )
+			return;
+		BufferedImage layer = OverlayRenderer.render( snapshot, image.getWidth(), image.getHeight(), 1, Color.WHITE, 0, -1 );
+		picture.setImage( OverlayRenderer.compose( image, layer ) );
+		setTitle( "DIP DE DGGE Algorithm - Live View - Generation " + snapshot.getGeneration()
+				+ ", best fitness " + snapshot.getBestFitness() + ", " + snapshot.size() + " nets" );
+	}
+
+}
@@ -24,6 +24,14 @@ class Picture extends JLabel {
 		image = new ImageIcon( raster );
 	}
 	
+	/** Replaces the image and repaints it. Should be called from the event dispatch thread.
+	 * @param raster : BufferedImage - New image.
+	 */
+	void setImage( BufferedImage raster ) {
+		image = new ImageIcon( raster );
+		repaint();
+	}
+	
 	/** Inherited (and overridden) method that draws the image into the JLabel. */
 	protected void paintComponent( Graphics graphic ) {
 		graphic.drawImage( image.getImage(), 0, 0, getWidth(), getHeight(), this );
@@ -2,8 +2,16 @@ package main;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import algorithm.Convergence;
 import algorithm.DifferentialEvolution;
+import algorithm.LaneEvolution;
+import algorithm.Net;
+import algorithm.SnapshotListener;
+import utils.Console;
 import utils.ImageUtils;
+import utils.OverlayRenderer;
+import utils.Randomizer;
 
 /** Executes the algorithm.
  * @author Cristopher Alvear Candia.
@@ -16,16 +24,33 @@ public class Run {
 		//String path = Screen.displayFileChooser( "bmp", "jpg", "jpeg", "png" );
 		String path = "images/2.jpeg";
 		
+		// Compares the parallel lifetime simulation against the sequential one.
+		if( args.length > 0 && args[ 0 ].equals( "--speedup" ) ) {
+			compareSimulation( path, 99, Runtime.getRuntime().availableProcessors() );
+			return;
+		}
+		
 		// Loads the image for the digital processing.
 		BufferedImage image = ImageUtils.loadImage( path );
 		// Sets the random seed.
 		//Randomizer.seed( 0 );
 		
-		// Differential Evolution execution.
-		execute( image, 9999, 0.1, 0.3, 0.1, 0.4, 0.6, 2 );
+		// Stops early when best fitness or surviving bands don't change anymore, if requested.
+		Convergence convergence = Arrays.asList( args ).contains( "--converge" ) ? new Convergence( 500, 200, 0 ) : null;
+		
+		// Differential Evolution execution, per lane if requested.
+		BufferedImage overlay;
+		if( args.length > 0 && args[ 0 ].equals( "--lanes" ) )
+			overlay = executeByLanes( image, 9999, 0.1, 0.3, 0.1, 0.4, 0.6, 2, convergence );
+		else if( args.length > 0 && args[ 0 ].equals( "--live" ) ) {
+			// Shows the generations while they run, the last one stays in the window.
+			execute( image, 9999, 0.1, 0.3, 0.1, 0.4, 0.6, 2, new LiveView( image ), convergence );
+			return;
+		} else
+			overlay = execute( image, 9999, 0.1, 0.3, 0.1, 0.4, 0.6, 2, null, convergence );
 		
-		// Render the image to the screen.
-		new ImageRenderer( image );
+		// Render the image with the nets overlay to the screen.
+		new ImageRenderer( OverlayRenderer.compose( image, overlay ) );
 		//new ImageRenderer( ImageUtils.loadImage( path ) );
 	}
 	
@@ -38,14 +63,92 @@ public class Run {
 	 * @param selection : double - Percentage of best nets selected from population.
 	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
 	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 * @param listener : SnapshotListener - Live view of the generations. Null for none.
+	 * @param convergence : Convergence - Convergence criteria. Null for running all generations.
+	 * @return BufferedImage - Overlay layer with the nets.
 	 */
-	private static void execute( BufferedImage image, int generations, double popdensity, double ndensity,
-			double mutation, double selection, double sensitiveness, int dispallow ) {
+	private static BufferedImage execute( BufferedImage image, int generations, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow, SnapshotListener listener, Convergence convergence ) {
 		DifferentialEvolution de = new DifferentialEvolution( image, popdensity, ndensity, mutation, selection, sensitiveness, dispallow );
+		de.setConvergence( convergence );
+		// Sends up to 30 snapshots per second to the live view.
+		if( listener != null )
+			de.setSnapshotListener( listener, 30 );
+		// Runs the algorithm.
+		Console.displayInfo( "Generations: " + de.run( generations ) + "." );
+		// Draws the last generation in the overlay.
+		return de.overlay( Color.WHITE, 0, -1, 1 );
+	}
+	
+	/** Executes the algorithm for each lane of the gel in parallel.
+	 * @param image : BufferedImage - Image to will be processed.
+	 * @param generations : int - How many generations will be generated per lane.
+	 * @param popdensity : double - Percentage of vertical length where nets will be inserted.
+	 * @param ndensity : double - Percentage of horizontal length where nodes will be inserted.
+	 * @param mutation : double - Percentage of generating new mutated children from population.
+	 * @param selection : double - Percentage of best nets selected from population.
+	 * @param sensitiveness : double - Percentage of sensitiveness of the movement of the net.
+	 * @param dispallow : int - Maximum dispersion/variation of thickness allowed.
+	 * @param convergence : Convergence - Convergence criteria, copied for each lane. Null for running all generations.
+	 * @return BufferedImage - Overlay layer with the nets.
+	 */
+	private static BufferedImage executeByLanes( BufferedImage image, int generations, double popdensity, double ndensity,
+			double mutation, double selection, double sensitiveness, int dispallow, Convergence convergence ) {
+		LaneEvolution le = new LaneEvolution( image, Math.max( 4, image.getWidth() / 50 ), popdensity, ndensity,
+				mutation, selection, sensitiveness, dispallow );
+		le.setConvergence( convergence );
+		Console.displayInfo( "Lanes: " + le.getLanes().length + "." );
 		// Runs the algorithm.
+		le.run( generations, Runtime.getRuntime().availableProcessors() );
+		// Draws the last generation of every lane in the overlay.
+		return le.overlay( Color.WHITE, 0, -1, 1 );
+	}
+	
+	/** Compares the time spent by the lifetime simulation running it in one thread and
+	 * in several threads with the same seed, and displays the speedup. Both runs use the
+	 * step snapshot simulation, so they do the same work and must find the same nets.
+	 * @param path : String - Path of the image to will be processed.
+	 * @param generations : int - How many generations will be generated.
+	 * @param threads : int - Quantity of threads of the parallel simulation.
+	 */
+	private static void compareSimulation( String path, int generations, int threads ) {
+		DifferentialEvolution single = simulate( path, generations, 1 );
+		DifferentialEvolution parallel = simulate( path, generations, threads );
+		Console.displayInfo( "Single thread simulation: " + single.getSimulationTimeInMillis() + " ms." );
+		Console.displayInfo( "Parallel simulation (" + threads + " threads): " + parallel.getSimulationTimeInMillis() + " ms." );
+		Console.displayInfo( "Speedup: " + single.getSimulationTimeInMillis() / parallel.getSimulationTimeInMillis() + "x." );
+		// The speedup only makes sense if both runs found the same nets.
+		if( outcome( single ).equals( outcome( parallel ) ) )
+			Console.displayInfo( "Both simulations found the same " + single.nets.size() + " nets." );
+		else
+			Console.displayError( "The simulations found different nets!" );
+	}
+	
+	/** Runs the algorithm with a fixed seed.
+	 * @param path : String - Path of the image to will be processed.
+	 * @param generations : int - How many generations will be generated.
+	 * @param parallelism : int - Quantity of threads. 0 for sequential simulation.
+	 * @return DifferentialEvolution - Evolution run, with its nets and simulation time.
+	 */
+	private static DifferentialEvolution simulate( String path, int generations, int parallelism ) {
+		Randomizer.seed( 0 );
+		DifferentialEvolution de = new DifferentialEvolution( ImageUtils.loadImage( path ), 0.1, 0.3, 0.1, 0.4, 0.6, 2 );
+		de.setParallelism( parallelism );
 		de.run( generations );
-		// Draws the last generation in the net.
-		de.print( image, Color.WHITE, 0, -1 );
+		return de;
+	}
+	
+	/** Describes the nets of an evolution by their fitness and limits, for comparing runs.
+	 * @param de : DifferentialEvolution - Evolution run.
+	 * @return String - Fitness and limits of each net.
+	 */
+	private static String outcome( DifferentialEvolution de ) {
+		StringBuilder outcome = new StringBuilder();
+		for( Net net : de.nets ) {
+			int[] limits = net.getLimits();
+			outcome.append( net.fitness() ).append( ':' ).append( limits[ 0 ] ).append( '-' ).append( limits[ 1 ] ).append( ' ' );
+		}
+		return outcome.toString();
 	}
 
 }
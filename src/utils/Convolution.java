@@ -0,0 +1,114 @@
+package utils;
+
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+/** Kernel convolution engine over the raw pixels of an image. Convolves the three
+ * color channels in a single pass, without allocations per pixel, processing
+ * bands of rows in parallel.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class Convolution {
+
+	/** Border handling. CLAMP repeats the nearest edge pixel, ZERO ignores the pixels out of the image. */
+	public enum Border { CLAMP, ZERO }
+
+	/** Minimum quantity of rows of a band processed by a thread. */
+	private static final int BAND_HEIGHT = 16;
+
+	/** Private constructor. */
+	private Convolution() {}
+
+	/** Convolves an image with a kernel. Channel results are truncated between 0 and 255.
+	 * @param image : BufferedImage - Image to will be processed.
+	 * @param kernel : Kernel - Convolution kernel.
+	 * @param border : Border - Border handling.
+	 * @return BufferedImage - New image, with the same type than the original.
+	 */
+	public static BufferedImage convolve( BufferedImage image, Kernel kernel, Border border ) {
+		int width = image.getWidth(), height = image.getHeight();
+		int[] source = image.getRGB( 0, 0, width, height, null, 0, width );
+		int[] target = convolve( source, width, height, kernel, border );
+		BufferedImage filtered = new BufferedImage( width, height, image.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_RGB : image.getType() );
+		filtered.setRGB( 0, 0, width, height, target, 0, width );
+		return filtered;
+	}
+
+	/** Convolves packed RGB pixels with a kernel.
+	 * @param source : int[] - Packed RGB pixels, row by row.
+	 * @param width : int - Width of the image.
+	 * @param height : int - Height of the image.
+	 * @param kernel : Kernel - Convolution kernel.
+	 * @param border : Border - Border handling.
+	 * @return int[] - Packed opaque RGB pixels, row by row.
+	 */
+	public static int[] convolve( int[] source, int width, int height, Kernel kernel, Border border ) {
+		int radius = kernel.getRadius(), side = radius * 2 + 1;
+		// Copies the weights into a flat array for the inner loop.
+		int[] weights = new int[ side * side ];
+		for( int dy = -radius, k = 0; dy <= radius; dy++ )
+			for( int dx = -radius; dx <= radius; dx++ )
+				weights[ k++ ] = kernel.getWeight( dx, dy );
+		int[] target = new int[ source.length ];
+		int bands = ( height + BAND_HEIGHT - 1 ) / BAND_HEIGHT;
+		IntStream.range( 0, bands ).parallel().forEach( band -> {
+			for( int y = band * BAND_HEIGHT; y < Math.min( height, ( band + 1 ) * BAND_HEIGHT ); y++ )
+				convolveRow( source, target, width, height, y, weights, radius, kernel.getDivisor(), border );
+		} );
+		return target;
+	}
+
+	/** Convolves a row of pixels.
+	 * @param source : int[] - Packed RGB pixels.
+	 * @param target : int[] - Packed RGB pixels convolved.
+	 * @param width : int - Width of the image.
+	 * @param height : int - Height of the image.
+	 * @param y : int - Row.
+	 * @param weights : int[] - Weights of the kernel, row by row.
+	 * @param radius : int - Radius of the kernel.
+	 * @param divisor : int - Divisor of the weighted sum.
+	 * @param border : Border - Border handling.
+	 */
+	private static void convolveRow( int[] source, int[] target, int width, int height, int y,
+			int[] weights, int radius, int divisor, Border border ) {
+		boolean innerRow = y >= radius && y < height - radius;
+		for( int x = 0; x < width; x++ ) {
+			int red = 0, green = 0, blue = 0, k = 0;
+			// Inner pixels don't need border handling.
+			if( innerRow && x >= radius && x < width - radius ) {
+				for( int row = ( y - radius ) * width + x - radius, dy = -radius; dy <= radius; dy++, row += width )
+					for( int index = row, dx = -radius; dx <= radius; dx++, index++, k++ ) {
+						int pixel = source[ index ], weight = weights[ k ];
+						red += weight * ( ( pixel >> 16 ) & 0xFF );
+						green += weight * ( ( pixel >> 8 ) & 0xFF );
+						blue += weight * ( pixel & 0xFF );
+					}
+			} else
+				for( int dy = -radius; dy <= radius; dy++ )
+					for( int dx = -radius; dx <= radius; dx++, k++ ) {
+						int xk = x + dx, yk = y + dy;
+						if( !ImageUtils.isAValidImageCoordinate( xk, yk, width, height ) ) {
+							if( border == Border.ZERO )
+								continue;
+							xk = Math.min( width - 1, Math.max( 0, xk ) );
+							yk = Math.min( height - 1, Math.max( 0, yk ) );
+						}
+						int pixel = source[ yk * width + xk ], weight = weights[ k ];
+						red += weight * ( ( pixel >> 16 ) & 0xFF );
+						green += weight * ( ( pixel >> 8 ) & 0xFF );
+						blue += weight * ( pixel & 0xFF );
+					}
+			target[ y * width + x ] = 0xFF000000 | channel( red / divisor ) << 16 | channel( green / divisor ) << 8 | channel( blue / divisor );
+		}
+	}
+
+	/** Truncates a channel value between 0 and 255.
+	 * @param value : int - Channel value.
+	 * @return int - Truncated channel value.
+	 */
+	private static int channel( int value ) {
+		return Math.min( 255, Math.max( 0, value ) );
+	}
+
+}
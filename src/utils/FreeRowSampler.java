@@ -0,0 +1,90 @@
+package utils;
+
+/** Sampler of the free rows of an occupancy index, weighted by a truncated Gaussian.
+ * The weights of the free rows are kept in a Fenwick tree, updated by the index when
+ * a row becomes free or occupied, so a row is drawn in O(log H) whatever the occupancy.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class FreeRowSampler {
+
+	/** Scale of the integer weights. Integer sums don't drift with the updates. */
+	private static final double SCALE = 1 << 20;
+
+	/** Weight of each row, used when the row is free. */
+	private final long[] weights;
+	/** Fenwick tree of the weights of the free rows, 1-based. */
+	private final long[] tree;
+	/** Highest power of two lower or equal than the quantity of rows. */
+	private final int mask;
+
+	/** Constructor. Attaches the sampler to the occupancy index.
+	 * @param occupancy : RowOccupancy - Occupancy index of the rows.
+	 * @param mean : float - Mean of the normal distribution.
+	 * @param sdeviation : float - Standard deviation of the normal distribution.
+	 */
+	public FreeRowSampler( RowOccupancy occupancy, float mean, float sdeviation ) {
+		int height = occupancy.getHeight();
+		weights = new long[ height ];
+		tree = new long[ height + 1 ];
+		for( int row = 0; row < height; row++ ) {
+			double z = sdeviation > 0 ? ( row - mean ) / sdeviation : ( row == Math.round( mean ) ? 0 : Double.POSITIVE_INFINITY );
+			// Every row keeps a minimum weight, so the tails can still be drawn.
+			weights[ row ] = Math.max( 1, Math.round( Math.exp( -0.5 * z * z ) * SCALE ) );
+			if( !occupancy.isOccupied( row ) )
+				tree[ row + 1 ] = weights[ row ];
+		}
+		// Builds the tree in linear time.
+		for( int i = 1; i <= height; i++ ) {
+			int parent = i + ( i & -i );
+			if( parent <= height )
+				tree[ parent ] += tree[ i ];
+		}
+		mask = height > 0 ? Integer.highestOneBit( height ) : 0;
+		occupancy.attach( this );
+	}
+
+	// Getters.
+
+	/** Draws a free row.
+	 * @param random : RandomStream - Random stream.
+	 * @return int - Free row, or -1 if every row is occupied.
+	 */
+	public int sample( RandomStream random ) {
+		long total = total();
+		if( total <= 0 )
+			return -1;
+		// Descends the tree looking for the row where the cumulative weight exceeds the target.
+		long target = random.getLong( total );
+		int index = 0;
+		for( int step = mask; step > 0; step >>= 1 )
+			if( index + step < tree.length && tree[ index + step ] <= target ) {
+				index += step;
+				target -= tree[ index ];
+			}
+		return index;
+	}
+
+	/** Returns the sum of the weights of the free rows.
+	 * @return long - Total weight.
+	 */
+	private long total() {
+		long sum = 0;
+		for( int i = tree.length - 1; i > 0; i -= i & -i )
+			sum += tree[ i ];
+		return sum;
+	}
+
+	// Setters.
+
+	/** Updates a row that became free or occupied. Called by the occupancy index.
+	 * @param row : int - Row.
+	 * @param free : boolean - True if the row became free, False if it became occupied.
+	 */
+	void update( int row, boolean free ) {
+		long delta = free ? weights[ row ] : -weights[ row ];
+		for( int i = row + 1; i < tree.length; i += i & -i )
+			tree[ i ] += delta;
+	}
+
+}
@@ -0,0 +1,163 @@
+package utils;
+
+/** Signed vertical gradient of an image plane, precomputed once per image. The
+ * difference between a pixel and its upper or lower neighbour is one array load.
+ * By default the map is stored column by column, so a node moving up or down walks
+ * sequential memory whatever the width of the image. The layout is hidden by the accessors.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class GradientMap {
+
+	/** Memory layouts of the map. */
+	public enum Layout { ROW_MAJOR, COLUMN_MAJOR }
+
+	/** Rows per block when the map is calculated. */
+	private static final int BLOCK = 32;
+
+	/** Decoded image plane. */
+	private final ImagePlane plane;
+	/** Difference between each pixel and its upper neighbour. First row is 0. */
+	private final short[] gradient;
+	/** Dimensions of the map. */
+	private final int width, height;
+	/** Maximum absolute difference of each block of rows of each column, column by column. */
+	private final short[] blockMaxima;
+	/** Quantity of blocks of rows per column. */
+	private final int blocks;
+	/** Memory layout of the map. */
+	private final Layout layout;
+	/** Distance in the array between horizontal and between vertical neighbours. */
+	private final int xstride, ystride;
+
+	/** Constructor. Calculates the vertical gradient of the plane, stored column by column.
+	 * @param plane : ImagePlane - Decoded image plane.
+	 */
+	public GradientMap( ImagePlane plane ) {
+		this( plane, Layout.COLUMN_MAJOR );
+	}
+
+	/** Constructor. Calculates the vertical gradient of the plane.
+	 * @param plane : ImagePlane - Decoded image plane.
+	 * @param layout : Layout - Memory layout of the map.
+	 */
+	public GradientMap( ImagePlane plane, Layout layout ) {
+		this.plane = plane;
+		this.layout = layout;
+		width = plane.getWidth();
+		height = plane.getHeight();
+		xstride = layout == Layout.COLUMN_MAJOR ? height : 1;
+		ystride = layout == Layout.COLUMN_MAJOR ? 1 : width;
+		gradient = new short[ width * height ];
+		blocks = ( height + BLOCK - 1 ) / BLOCK;
+		blockMaxima = new short[ width * blocks ];
+		// Goes through blocks of rows, so the reads of the plane and the writes of the map
+		// stay in cache whatever the layout.
+		for( int top = 1; top < height; top += BLOCK ) {
+			int bottom = Math.min( height, top + BLOCK );
+			for( int x = 0; x < width; x++ )
+				for( int y = top; y < bottom; y++ ) {
+					short difference = ( short ) ( plane.get( x, y ) - plane.get( x, y - 1 ) );
+					gradient[ x * xstride + y * ystride ] = difference;
+					int block = x * blocks + y / BLOCK;
+					blockMaxima[ block ] = ( short ) Math.max( blockMaxima[ block ], Math.abs( difference ) );
+				}
+		}
+	}
+
+	// Getters.
+
+	/** Returns the decoded image plane.
+	 * @return ImagePlane - Decoded image plane.
+	 */
+	public ImagePlane getPlane() {
+		return plane;
+	}
+
+	/** Returns the memory layout of the map.
+	 * @return Layout - Memory layout.
+	 */
+	public Layout getLayout() {
+		return layout;
+	}
+
+	/** Returns the width of the map.
+	 * @return int - Width in pixels.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/** Returns the height of the map.
+	 * @return int - Height in pixels.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/** Returns the difference between a pixel and its upper neighbour.
+	 * @param x : int - Horizontal component.
+	 * @param y : int - Vertical component. Should be greater than 0.
+	 * @return int - Pixel value minus upper pixel value.
+	 */
+	public int up( int x, int y ) {
+		return gradient[ x * xstride + y * ystride ];
+	}
+
+	/** Returns the difference between a pixel and its lower neighbour.
+	 * @param x : int - Horizontal component.
+	 * @param y : int - Vertical component. Should be lower than height - 1.
+	 * @return int - Pixel value minus lower pixel value.
+	 */
+	public int down( int x, int y ) {
+		return -gradient[ x * xstride + ( y + 1 ) * ystride ];
+	}
+
+	/** Returns the row where a pixel moving vertically one row at a time from a given row
+	 * stops, because the absolute difference with the next row exceeds the resistance.
+	 * Blocks of rows without such a difference are skipped at once.
+	 * @param x : int - Horizontal component.
+	 * @param y : int - Vertical component where the movement starts.
+	 * @param dy : int - Vertical step of the movement. -1 (up) or 1 (down).
+	 * @param resistance : int - Maximum absolute difference crossed by the movement.
+	 * @param limit : int - Maximum quantity of rows searched, from the starting one.
+	 * @return int - Row where the movement stops, or -1 if it isn't in the rows searched or
+	 * 	the movement reaches the image border before.
+	 */
+	public int nextEdge( int x, int y, int dy, int resistance, int limit ) {
+		// Row of the map holding the difference with the next row, from the next row itself.
+		int row = dy < 0 ? y : y + 1, end = row + dy * limit, column = x * xstride, base = x * blocks;
+		while( row != end && row >= 1 && row < height ) {
+			int block = row / BLOCK;
+			if( blockMaxima[ base + block ] <= resistance ) {
+				// Skips the rest of the block, without passing the end.
+				int next = dy < 0 ? block * BLOCK - 1 : ( block + 1 ) * BLOCK;
+				row = dy < 0 ? Math.max( next, end ) : Math.min( next, end );
+				continue;
+			}
+			if( Math.abs( gradient[ column + row * ystride ] ) > resistance )
+				return dy < 0 ? row : row - 1;
+			row += dy;
+		}
+		return -1;
+	}
+
+	/** Returns the difference between a pixel and another one. Uses the map when the
+	 * other pixel is the upper or lower neighbour, otherwise reads the plane.
+	 * @param x : int - Horizontal component.
+	 * @param y : int - Vertical component.
+	 * @param xf : int - Horizontal component of the other pixel.
+	 * @param yf : int - Vertical component of the other pixel.
+	 * @return int - Pixel value minus other pixel value.
+	 */
+	public int difference( int x, int y, int xf, int yf ) {
+		if( xf == x ) {
+			if( yf == y - 1 )
+				return up( x, y );
+			if( yf == y + 1 )
+				return down( x, y );
+		}
+		return plane.get( x, y ) - plane.get( xf, yf );
+	}
+
+}
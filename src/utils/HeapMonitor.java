@@ -0,0 +1,43 @@
+package utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/** Utility class to measure the peak usage of the heap memory pools.
+ * [info] Peaks are shared by the whole virtual machine, so the peak measured while
+ * several images are processed at the same time includes all of them.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class HeapMonitor {
+
+	/** Private constructor. */
+	private HeapMonitor() {}
+
+	/** Resets the peak usage of the heap pools to their current usage. */
+	public static void reset() {
+		for( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+			if( pool.getType() == MemoryType.HEAP && pool.isValid() )
+				pool.resetPeakUsage();
+	}
+
+	/** Returns the sum of the peak usage of the heap pools since the last reset.
+	 * @return long - Peak heap usage in bytes.
+	 */
+	public static long getPeak() {
+		long peak = 0;
+		for( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+			if( pool.getType() == MemoryType.HEAP && pool.isValid() && pool.getPeakUsage() != null )
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+
+	/** Returns the peak heap usage in megabytes since the last reset.
+	 * @return double - Peak heap usage in megabytes.
+	 */
+	public static double getPeakInMegabytes() {
+		return ( double ) getPeak() / ( 1024 * 1024 );
+	}
+
+}
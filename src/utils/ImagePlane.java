@@ -0,0 +1,126 @@
+package utils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** Single channel plane of an image decoded once into a primitive array, or mapped
+ * from a cached file. Avoids calling getRGB and allocating Color objects for every pixel read.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class ImagePlane {
+
+	/** Pixel values (blue channel), row by row. Values are between 0 and 255. */
+	private final ByteBuffer pixels;
+	/** Dimensions of the plane. */
+	private final int width, height;
+
+	/** Constructor. Decodes the blue channel of the image.
+	 * @param image : BufferedImage - Image to will be decoded.
+	 */
+	public ImagePlane( BufferedImage image ) {
+		width = image.getWidth();
+		height = image.getHeight();
+		byte[] decoded = new byte[ width * height ];
+		decode( image, 0, decoded );
+		pixels = ByteBuffer.wrap( decoded );
+	}
+
+	/** Constructor. Decodes the blue channel of a vertical region of an image file, strip by
+	 * strip, so only the plane and one decoded strip are in memory at the same time.
+	 * @param source : TiledImageSource - Image file read by regions.
+	 * @param left : int - Left column of the region.
+	 * @param width : int - Width of the region.
+	 * @param budget : long - Memory budget in bytes for a decoded strip.
+	 * @throws IOException - If the image can't be decoded.
+	 */
+	public ImagePlane( TiledImageSource source, int left, int width, long budget ) throws IOException {
+		this.width = width;
+		height = source.getHeight();
+		byte[] decoded = new byte[ width * height ];
+		int rows = source.stripHeight( width, budget );
+		for( int y = 0; y < height; y += rows ) {
+			decode( source.read( left, y, width, Math.min( rows, height - y ) ), y, decoded );
+		}
+		pixels = ByteBuffer.wrap( decoded );
+	}
+
+	/** Constructor. Uses the pixel values of a buffer without copying them, like a buffer
+	 * mapped from a cached file.
+	 * @param pixels : ByteBuffer - Pixel values, row by row, from index 0.
+	 * @param width : int - Width of the plane.
+	 * @param height : int - Height of the plane.
+	 */
+	public ImagePlane( ByteBuffer pixels, int width, int height ) {
+		// Precondition : pixels.capacity() >= width * height.
+		this.pixels = pixels;
+		this.width = width;
+		this.height = height;
+	}
+
+	/** Decodes the blue channel of an image into the rows of the plane.
+	 * @param image : BufferedImage - Image, as wide as the plane.
+	 * @param top : int - Row of the plane where the first row of the image is decoded.
+	 * @param decoded : byte[] - Pixel values of the plane.
+	 */
+	private void decode( BufferedImage image, int top, byte[] decoded ) {
+		// Decodes the image row by row reusing the same buffer.
+		int[] row = new int[ width ];
+		for( int y = 0, offset = top * width; y < image.getHeight(); y++, offset += width ) {
+			image.getRGB( 0, y, width, 1, row, 0, width );
+			for( int x = 0; x < width; x++ )
+				decoded[ offset + x ] = ( byte ) row[ x ];
+		}
+	}
+
+	/** Returns a plane with half the width and half the height, each pixel the average
+	 * of a block of 2x2 pixels. An odd last row or column is dropped.
+	 * @return ImagePlane - Downsampled plane.
+	 */
+	public ImagePlane downsample() {
+		int halfWidth = Math.max( 1, width / 2 ), halfHeight = Math.max( 1, height / 2 );
+		byte[] downsampled = new byte[ halfWidth * halfHeight ];
+		for( int y = 0, offset = 0; y < halfHeight; y++, offset += halfWidth ) {
+			int y0 = Math.min( y * 2, height - 1 ), y1 = Math.min( y * 2 + 1, height - 1 );
+			for( int x = 0; x < halfWidth; x++ ) {
+				int x0 = Math.min( x * 2, width - 1 ), x1 = Math.min( x * 2 + 1, width - 1 );
+				downsampled[ offset + x ] = ( byte ) ( ( get( x0, y0 ) + get( x1, y0 ) + get( x0, y1 ) + get( x1, y1 ) + 2 ) / 4 );
+			}
+		}
+		return new ImagePlane( ByteBuffer.wrap( downsampled ), halfWidth, halfHeight );
+	}
+
+	// Getters.
+
+	/** Returns the width of the plane.
+	 * @return int - Width in pixels.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/** Returns the height of the plane.
+	 * @return int - Height in pixels.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/** Returns the pixel value of a coordinate.
+	 * @param x : int - Horizontal component.
+	 * @param y : int - Vertical component.
+	 * @return int - Pixel value between 0 and 255.
+	 */
+	public int get( int x, int y ) {
+		return pixels.get( y * width + x ) & 0xFF;
+	}
+
+	/** Returns a read only view of the pixel values, for writing them without copying.
+	 * @return ByteBuffer - Pixel values, row by row.
+	 */
+	public ByteBuffer getPixels() {
+		return pixels.asReadOnlyBuffer().position( 0 ).limit( width * height );
+	}
+
+}
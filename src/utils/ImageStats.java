@@ -0,0 +1,285 @@
+package utils;
+
+import java.awt.image.BufferedImage;
+
+/** Statistics of an image calculated in one parallel pass: the minimum and maximum of the
+ * vertical pixel value difference, the histograms of the differences and of the intensities,
+ * and the projections of the columns and of the rows. Each band of rows is analyzed into a
+ * partial result, and the partial results are merged, so the pixels are read only once.
+ * Differences and projections are over the blue channel, the one decoded by the planes.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class ImageStats {
+
+	/** Dimensions of the image. */
+	private final int width, height;
+	/** Minimum and maximum vertical pixel value difference. */
+	private final int minDifference, maxDifference;
+	/** Histograms of the absolute vertical differences and of the intensities, 256 entries. */
+	private final int[] differences, intensities;
+	/** Average pixel value of each column and of each row. */
+	private final double[] columns, rows;
+
+	/** Constructor. Analyzes a decoded image plane. Intensities are the pixel values of the plane.
+	 * @param plane : ImagePlane - Decoded image plane to will be analyzed.
+	 */
+	public ImageStats( ImagePlane plane ) {
+		width = plane.getWidth();
+		height = plane.getHeight();
+		rows = new double[ height ];
+		Band merged = PointOperation.bands( height ).mapToObj( index -> {
+			Band band = new Band( width );
+			int top = index * PointOperation.BAND_HEIGHT, bottom = Math.min( height, top + PointOperation.BAND_HEIGHT );
+			int[] previous = new int[ width ], current = new int[ width ];
+			// The last row of the previous band is only read for the differences of the first row.
+			if( top > 0 )
+				for( int x = 0; x < width; x++ )
+					previous[ x ] = plane.get( x, top - 1 );
+			for( int y = top; y < bottom; y++ ) {
+				for( int x = 0; x < width; x++ )
+					current[ x ] = plane.get( x, y );
+				analyze( band, y, current, current, y > 0 ? previous : null );
+				// Swaps the rows, reusing the buffers.
+				int[] swap = previous;
+				previous = current;
+				current = swap;
+			}
+			return band;
+		} ).reduce( Band::merge ).orElseGet( () -> new Band( width ) );
+		minDifference = merged.min;
+		maxDifference = merged.max;
+		differences = merged.differences;
+		intensities = merged.intensities;
+		columns = average( merged.columns, height );
+	}
+
+	/** Constructor. Analyzes an image reading its pixels by bands of rows, without decoding a
+	 * plane. Intensities are the average of the three channels, like the histogram of the
+	 * preprocessing, so in grayscale images they are the same values than the blue channel.
+	 * @param image : BufferedImage - Image to will be analyzed.
+	 */
+	public ImageStats( BufferedImage image ) {
+		width = image.getWidth();
+		height = image.getHeight();
+		rows = new double[ height ];
+		Band merged = PointOperation.bands( height ).mapToObj( index -> {
+			Band band = new Band( width );
+			int top = index * PointOperation.BAND_HEIGHT, bottom = Math.min( height, top + PointOperation.BAND_HEIGHT );
+			// Reads the band and the last row of the previous one at once.
+			int first = Math.max( 0, top - 1 );
+			int[] pixels = image.getRGB( 0, first, width, bottom - first, null, 0, width );
+			int[] previous = new int[ width ], current = new int[ width ], intensity = new int[ width ];
+			for( int y = first, offset = 0; y < bottom; y++, offset += width ) {
+				for( int x = 0; x < width; x++ ) {
+					current[ x ] = pixels[ offset + x ] & 0xFF;
+					intensity[ x ] = PointOperation.sum( pixels[ offset + x ] ) / 3;
+				}
+				if( y >= top )
+					analyze( band, y, current, intensity, y > 0 ? previous : null );
+				// Swaps the rows, reusing the buffers.
+				int[] swap = previous;
+				previous = current;
+				current = swap;
+			}
+			return band;
+		} ).reduce( Band::merge ).orElseGet( () -> new Band( width ) );
+		minDifference = merged.min;
+		maxDifference = merged.max;
+		differences = merged.differences;
+		intensities = merged.intensities;
+		columns = average( merged.columns, height );
+	}
+
+	/** Adds a row to the partial result of its band.
+	 * @param band : Band - Partial result of the band.
+	 * @param y : int - Row.
+	 * @param values : int[] - Pixel values of the row.
+	 * @param intensity : int[] - Intensities of the row.
+	 * @param previous : int[] - Pixel values of the row above. Null for the first row of the image.
+	 */
+	private void analyze( Band band, int y, int[] values, int[] intensity, int[] previous ) {
+		long sum = 0;
+		for( int x = 0; x < width; x++ ) {
+			int value = values[ x ];
+			band.intensities[ intensity[ x ] ]++;
+			band.columns[ x ] += value;
+			sum += value;
+			if( previous != null ) {
+				int difference = Math.abs( previous[ x ] - value );
+				band.differences[ difference ]++;
+				band.max = band.max < difference ? difference : band.max;
+				band.min = band.min > difference ? difference : band.min;
+			}
+		}
+		// Each band writes only its own rows.
+		rows[ y ] = width > 0 ? ( double ) sum / width : 0;
+	}
+
+	// Getters.
+
+	/** Returns the width of the image.
+	 * @return int - Width in pixels.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/** Returns the height of the image.
+	 * @return int - Height in pixels.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/** Returns the minimum and maximum of the vertical pixel value difference, like
+	 * ImageUtils.verticalDifferenceAnalysis does.
+	 * @return int[] - Array of data. Contains { min, max }.
+	 */
+	public int[] getDifferences() {
+		return new int[]{ minDifference, maxDifference };
+	}
+
+	/** Returns the histogram of the absolute vertical pixel value differences.
+	 * @return int[] - Histogram array, 256 entries.
+	 */
+	public int[] getDifferenceHistogram() {
+		return differences.clone();
+	}
+
+	/** Returns the histogram of the intensities.
+	 * @return int[] - Histogram array, 256 entries.
+	 */
+	public int[] getIntensityHistogram() {
+		return intensities.clone();
+	}
+
+	/** Returns the average pixel value of each column, like ImageUtils.columnProjection does.
+	 * @return double[] - Average pixel value of each column.
+	 */
+	public double[] getColumnProjection() {
+		return columns.clone();
+	}
+
+	/** Returns the average pixel value of each row.
+	 * @return double[] - Average pixel value of each row.
+	 */
+	public double[] getRowProjection() {
+		return rows.clone();
+	}
+
+	/** Returns the smallest vertical difference not exceeded by a fraction of the differences.
+	 * @param fraction : double - Fraction of the differences, between 0 and 1.
+	 * @return int - Vertical difference of the percentile.
+	 */
+	public int getDifferencePercentile( double fraction ) {
+		return percentile( differences, fraction );
+	}
+
+	/** Returns the vertical difference of another image that leaves above it the same fraction
+	 * of the differences than a difference of this image, e.g. for moving a resistance between
+	 * two levels of a pyramid. A difference over the maximum stays over the maximum.
+	 * @param difference : int - Vertical difference of this image.
+	 * @param other : ImageStats - Statistics of the other image.
+	 * @return int - Vertical difference of the other image.
+	 */
+	public int translateDifference( int difference, ImageStats other ) {
+		if( difference > maxDifference )
+			return other.maxDifference + 1;
+		long total = 0, accumulated = 0;
+		for( int value = 0; value < differences.length; value++ ) {
+			total += differences[ value ];
+			accumulated += value <= difference ? differences[ value ] : 0;
+		}
+		return other.getDifferencePercentile( total > 0 ? ( double ) accumulated / total : 1 );
+	}
+
+	/** Returns the smallest intensity not exceeded by a fraction of the pixels, e.g. for
+	 * choosing the limits of a contrast.
+	 * @param fraction : double - Fraction of the pixels, between 0 and 1.
+	 * @return int - Intensity of the percentile.
+	 */
+	public int getIntensityPercentile( double fraction ) {
+		return percentile( intensities, fraction );
+	}
+
+	/** Returns the resistance of the nets that leaves at most a fraction of the vertical
+	 * differences above it, so that fraction of the differences stops the nodes. The resistance
+	 * follows the distribution of the differences instead of the linear blend between the
+	 * minimum and the maximum given by a sensitiveness.
+	 * @param edges : double - Fraction of the vertical differences treated as edges, between 0 and 1.
+	 * @return int - Movement resistance threshold.
+	 */
+	public int resistance( double edges ) {
+		return getDifferencePercentile( 1 - edges );
+	}
+
+	// Utilities.
+
+	/** Returns the smallest value of a histogram not exceeded by a fraction of the counts.
+	 * @param histogram : int[] - Histogram array.
+	 * @param fraction : double - Fraction of the counts, between 0 and 1.
+	 * @return int - Value of the percentile. 0 for an empty histogram.
+	 */
+	private static int percentile( int[] histogram, double fraction ) {
+		long total = 0;
+		for( int count : histogram )
+			total += count;
+		double target = Math.min( 1, Math.max( 0, fraction ) ) * total;
+		long accumulated = 0;
+		for( int value = 0; value < histogram.length; value++ ) {
+			accumulated += histogram[ value ];
+			if( accumulated > 0 && accumulated >= target )
+				return value;
+		}
+		return 0;
+	}
+
+	/** Divides sums into averages.
+	 * @param sums : long[] - Sums.
+	 * @param count : int - Quantity of values of each sum.
+	 * @return double[] - Averages.
+	 */
+	private static double[] average( long[] sums, int count ) {
+		double[] averages = new double[ sums.length ];
+		for( int i = 0; i < sums.length; i++ )
+			averages[ i ] = count > 0 ? ( double ) sums[ i ] / count : 0;
+		return averages;
+	}
+
+	/** Partial result of a band of rows. */
+	private static class Band {
+
+		/** Minimum and maximum vertical pixel value difference of the band. */
+		int min = 255, max = 0;
+		/** Histograms of the absolute vertical differences and of the intensities of the band. */
+		final int[] differences = new int[ 256 ], intensities = new int[ 256 ];
+		/** Sum of the pixel values of each column in the band. */
+		final long[] columns;
+
+		/** Constructor.
+		 * @param width : int - Width of the image.
+		 */
+		Band( int width ) {
+			columns = new long[ width ];
+		}
+
+		/** Adds another partial result to this one.
+		 * @param other : Band - Partial result of another band.
+		 * @return Band - This partial result.
+		 */
+		Band merge( Band other ) {
+			min = Math.min( min, other.min );
+			max = Math.max( max, other.max );
+			for( int value = 0; value < 256; value++ ) {
+				differences[ value ] += other.differences[ value ];
+				intensities[ value ] += other.intensities[ value ];
+			}
+			for( int x = 0; x < columns.length; x++ )
+				columns[ x ] += other.columns[ x ];
+			return this;
+		}
+
+	}
+
+}
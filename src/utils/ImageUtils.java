@@ -5,10 +5,12 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import javax.imageio.ImageIO;
 
 import algorithm.Coordinate;
+import algorithm.Net;
 import algorithm.Node;
 
 /** Utility class to processing images.
@@ -17,6 +19,11 @@ import algorithm.Node;
  */
 public class ImageUtils {
 	
+	/** Minimum fraction of the width covered by the detected lanes. */
+	private static final double MIN_LANE_COVERAGE = 1.0 / 3;
+	/** Minimum difference between the average detail of the lanes and of the gaps, in pixel values. */
+	private static final double MIN_LANE_CONTRAST = 1;
+	
 	/** Private constructor. */
 	private ImageUtils() {}
 	
@@ -35,15 +42,10 @@ public class ImageUtils {
 	
 	/** Generates a scalegray histogram.
 	 * @param image : BufferedImage.
-	 * @return int[] - Histogram array.
+	 * @return int[] - Histogram array, 256 entries.
 	 */
 	public static int[] histogram( BufferedImage image ) {
-		int[] histogram = new int[ 255 ];
-		for( int x = 0; x < image.getWidth(); x++ )
-			for( int y = 0; y < image.getHeight(); y++ )
-				histogram[ averagePixel( new Color( image.getRGB( x, y ) ) ) ]++;
-		
-		return histogram;
+		return PointOperation.histogram( image );
 	}
 	
 	// Image processing methods.
@@ -52,9 +54,7 @@ public class ImageUtils {
 	 * @param image : BufferedImage - Image to will be turned into a grayscale one.
 	 */
 	public static void grayScale( BufferedImage image ) {
-		for( int x = 0; x < image.getWidth(); x++ )
-			for( int y = 0; y < image.getHeight(); y++ )
-				image.setRGB( x, y, pixelToGrayScale( new Color( image.getRGB( x, y ) ) ).getRGB() );
+		PointOperation.identity().apply( image );
 	}
 	
 	/** Contrast an image truncating the pixels to linear channels.
@@ -65,9 +65,19 @@ public class ImageUtils {
 	 */
 	public static void contrast( BufferedImage image, int channels, int alignment ) {
 		// Precondition : image should be in grayscale.
-		for( int x = 0; x < image.getWidth(); x++ )
-			for( int y = 0; y < image.getHeight(); y++ )
-				image.setRGB( x, y, pixelChannelFilter( new Color( image.getRGB( x, y ) ), channelsLimit( channels, alignment ) ).getRGB() );
+		contrastOperation( channels, alignment ).apply( image );
+	}
+	
+	/** Returns the contrast as a point operation, for chaining it with other ones.
+	 * @param channels : int - Quantity of channels (divisions). More channels means less contrast.
+	 * @param alignment : int - Alignment of the channels respect to middle. (+ close to BLACK, 0 centered, - close to WHITE).
+	 * @return PointOperation - Contrast operation.
+	 */
+	public static PointOperation contrastOperation( int channels, int alignment ) {
+		int[] limits = channelsLimit( channels, alignment ), table = new int[ 256 ];
+		for( int value = 0; value < table.length; value++ )
+			table[ value ] = channelFilter( value, limits );
+		return new PointOperation( table );
 	}
 	
 	/** Sets Laplacian filter at the input image.
@@ -75,33 +85,12 @@ public class ImageUtils {
 	 * @return BufferedImage - Image with Laplacian filter.
 	 */
 	public static BufferedImage laplace( BufferedImage image ) {
-		// Clones the image.
-		BufferedImage imageFiltered = cloneImage( image );
-		for( int x = 0; x < image.getWidth(); x++ )
-			for( int y = 0; y < image.getHeight(); y++ )
-				imageFiltered.setRGB( x, y, new Color( laplaceRed( image, x, y ), laplaceGreen( image, x, y ), laplaceBlue( image, x, y ) ).getRGB() );
-		return imageFiltered;
+		// Pixels out of the image are ignored, as the Laplacian filter always did.
+		return Convolution.convolve( image, Kernel.laplace(), Convolution.Border.ZERO );
 	}
 	
 	// Image processing utilities.
 	
-	/** Turns a pixel into a grayscale pixel calculating the average of the three color channels.
-	 * @param pixel : Color - Pixel to will be turned into a grayscale one.
-	 * @return Color - Grayscale pixel.
-	 */
-	private static int averagePixel( Color pixel ) {
-		return ( pixel.getRed() + pixel.getGreen() + pixel.getBlue() ) / 3;
-	}
-	
-	/** Turns a pixel into a grayscale pixel calculating the average of the three color channels.
-	 * @param pixel : Color - Pixel to will be turned into a grayscale one.
-	 * @return Color - Grayscale pixel.
-	 */
-	private static Color pixelToGrayScale( Color pixel ) {
-		int media = averagePixel( pixel );
-		return new Color( media, media, media );
-	}
-	
 	/** Generates an array of the limits of the channels for the contrast algorithm.
 	 * @param channels : int - Quantity of channels.
 	 * @param alignment : int - Alignment of the channels respect to middle. (+ close to BLACK, 0 centered, - close to WHITE).
@@ -124,65 +113,20 @@ public class ImageUtils {
 		return limits;
 	}
 	
-	/** Filters the pixel for the contrast algorithm.
-	 * @param pixel : Color - Pixel to will be contrast.
+	/** Filters the average pixel value for the contrast algorithm.
+	 * @param media : int - Average pixel value (grayscale) to will be contrast.
 	 * @param limits : int[] - Array of the limits of the channels.
-	 * @return Color - Contrast pixel.
+	 * @return int - Contrast gray value.
 	 */
-	private static Color pixelChannelFilter( Color pixel, int[] limits ) {
-		// Calculates the average pixel value (grayscale).
-		int media = averagePixel( pixel );
+	private static int channelFilter( int media, int[] limits ) {
 		// Gets the highest index of the channel found.
 		int channel = binaryRangeSearch( limits, media, 0, limits.length - 1 );
 		// Filter the color of the pixel.
 		if( channel == 1 )
-			return Color.BLACK;
+			return 0;
 		if( channel == limits.length - 1 )
-			return Color.WHITE;
-		media = ( limits[ channel - 1 ] + limits[ channel ] ) / 2;
-		return new Color( media, media, media );
-	}
-	
-	/** Returns red pixel value with Laplacian operator applied.
-	 * @param image : BufferedImage - Image.
-	 * @param x : int - Horizontal component (row).
-	 * @param y : int - Vertical component (column).
-	 * @return int - Red pixel value.
-	 */
-	private static int laplaceRed( BufferedImage image, int x, int y ) {
-		Coordinate[] adjacent = adjacentCoordinates( 1, new Coordinate( x, y ), image.getWidth(), image.getHeight() );
-		int red = new Color( image.getRGB( x, y ) ).getRed() * 10;
-		for( Coordinate coordinate : adjacent )
-			red -= new Color( image.getRGB( coordinate.getX(), coordinate.getY() ) ).getRed();
-		return Math.min( 255, Math.max( 0, red ) );
-	}
-	
-	/** Returns green pixel value with Laplacian operator applied.
-	 * @param image : BufferedImage - Image.
-	 * @param x : int - Horizontal component (row).
-	 * @param y : int - Vertical component (column).
-	 * @return int - Green pixel value.
-	 */
-	private static int laplaceGreen( BufferedImage image, int x, int y ) {
-		Coordinate[] adjacent = adjacentCoordinates( 1, new Coordinate( x, y ), image.getWidth(), image.getHeight() );
-		int green = new Color( image.getRGB( x, y ) ).getGreen() * 10;
-		for( Coordinate coordinate : adjacent )
-			green -= new Color( image.getRGB( coordinate.getX(), coordinate.getY() ) ).getGreen();
-		return Math.min( 255, Math.max( 0, green ) );
-	}
-	
-	/** Returns blue pixel value with Laplacian operator applied.
-	 * @param image : BufferedImage - Image.
-	 * @param x : int - Horizontal component (row).
-	 * @param y : int - Vertical component (column).
-	 * @return int - Blue pixel value.
-	 */
-	private static int laplaceBlue( BufferedImage image, int x, int y ) {
-		Coordinate[] adjacent = adjacentCoordinates( 1, new Coordinate( x, y ), image.getWidth(), image.getHeight() );
-		int blue = new Color( image.getRGB( x, y ) ).getBlue() * 10;
-		for( Coordinate coordinate : adjacent )
-			blue -= new Color( image.getRGB( coordinate.getX(), coordinate.getY() ) ).getBlue();
-		return Math.min( 255, Math.max( 0, blue ) );
+			return 255;
+		return ( limits[ channel - 1 ] + limits[ channel ] ) / 2;
 	}
 	
 	// Surrounding coordinates.
@@ -272,39 +216,187 @@ public class ImageUtils {
 	 * @return int[] - Array of data. Contains { min, max }.
 	 */
 	public static int[] verticalDifferenceAnalysis( BufferedImage image ) {
+		return verticalDifferenceAnalysis( new ImagePlane( image ) );
+	}
+	
+	/** Calculates the minimum and maximum of the vertical pixel value difference.
+	 * @param plane : ImagePlane - Decoded image plane to will be analyzed.
+	 * @return int[] - Array of data. Contains { min, max }.
+	 */
+	public static int[] verticalDifferenceAnalysis( ImagePlane plane ) {
 		int difference, max = 0, min = 255;
-		for( int y = 1; y < image.getHeight(); y++ )
-			for( int x = 0; x < image.getWidth(); x++ ) {
-				difference = Math.abs( new Color( image.getRGB( x, y - 1 ) ).getBlue() - new Color( image.getRGB( x, y ) ).getBlue() );
+		for( int y = 1; y < plane.getHeight(); y++ )
+			for( int x = 0; x < plane.getWidth(); x++ ) {
+				difference = Math.abs( plane.get( x, y - 1 ) - plane.get( x, y ) );
 				max = max < difference ? difference : max;
 				min = min > difference ? difference : min;
 			}
 		return new int[]{ min, max };
 	}
 	
+	/** Calculates the minimum and maximum of the vertical pixel value difference.
+	 * @param gradient : GradientMap - Vertical gradient of the image to will be analyzed.
+	 * @return int[] - Array of data. Contains { min, max }.
+	 */
+	public static int[] verticalDifferenceAnalysis( GradientMap gradient ) {
+		int difference, max = 0, min = 255;
+		// Reads column by column, the default layout of the map.
+		for( int x = 0; x < gradient.getWidth(); x++ )
+			for( int y = 1; y < gradient.getHeight(); y++ ) {
+				difference = Math.abs( gradient.up( x, y ) );
+				max = max < difference ? difference : max;
+				min = min > difference ? difference : min;
+			}
+		return new int[]{ min, max };
+	}
+	
+	/** Calculates the average pixel value of each column.
+	 * @param plane : ImagePlane - Decoded image plane to will be analyzed.
+	 * @return double[] - Average pixel value of each column.
+	 */
+	public static double[] columnProjection( ImagePlane plane ) {
+		double[] projection = new double[ plane.getWidth() ];
+		for( int y = 0; y < plane.getHeight(); y++ )
+			for( int x = 0; x < plane.getWidth(); x++ )
+				projection[ x ] += plane.get( x, y );
+		for( int x = 0; x < projection.length; x++ )
+			projection[ x ] /= plane.getHeight();
+		return projection;
+	}
+	
+	/** Detects the lanes of a gel from the column projection. The projection is smoothed and
+	 * its slow trend, the uneven illumination, is subtracted, then one global Otsu threshold
+	 * splits the columns in lanes and gaps. Lanes are the side with more columns, gaps between
+	 * lanes are narrower than the lanes. If the lanes cover too little of the width, or there
+	 * isn't contrast between lanes and gaps, the whole image is one lane.
+	 * @param plane : ImagePlane - Decoded image plane to will be analyzed.
+	 * @param minWidth : int - Minimum width of a lane in pixels. Also the scale of the smoothing
+	 * 	and of the trend.
+	 * @return int[][] - Array of lanes. Each lane is { left, right }, both inclusive.
+	 */
+	public static int[][] detectLanes( ImagePlane plane, int minWidth ) {
+		return detectLanes( columnProjection( plane ), minWidth );
+	}
+	
+	/** Detects the lanes of a gel from the column projection of its statistics already
+	 * calculated, without reading the image again.
+	 * @param stats : ImageStats - Statistics of the image.
+	 * @param minWidth : int - Minimum width of a lane in pixels. Also the scale of the smoothing
+	 * 	and of the trend.
+	 * @return int[][] - Array of lanes. Each lane is { left, right }, both inclusive.
+	 */
+	public static int[][] detectLanes( ImageStats stats, int minWidth ) {
+		return detectLanes( stats.getColumnProjection(), minWidth );
+	}
+	
+	/** Detects the lanes of a gel from its column projection.
+	 * @param projection : double[] - Average pixel value of each column.
+	 * @param minWidth : int - Minimum width of a lane in pixels.
+	 * @return int[][] - Array of lanes. Each lane is { left, right }, both inclusive.
+	 */
+	private static int[][] detectLanes( double[] projection, int minWidth ) {
+		int width = projection.length;
+		// Detail of the projection over its trend, the trend spans a couple of lanes.
+		double[] smoothed = boxFilter( projection, Math.max( 1, minWidth / 4 ) );
+		double[] trend = boxFilter( smoothed, 2 * minWidth );
+		double[] detail = new double[ width ];
+		for( int x = 0; x < width; x++ )
+			detail[ x ] = smoothed[ x ] - trend[ x ];
+		double threshold = otsuThreshold( detail );
+		int above = 0;
+		double sumAbove = 0, sumBelow = 0;
+		for( double value : detail )
+			if( value > threshold ) {
+				above++;
+				sumAbove += value;
+			} else
+				sumBelow += value;
+		boolean brightLanes = 2 * above > width;
+		// Without contrast between lanes and gaps the split is only noise.
+		boolean contrasted = above > 0 && above < width && sumAbove / above - sumBelow / ( width - above ) >= MIN_LANE_CONTRAST;
+		// Collects the runs of lane columns.
+		ArrayList<int[]> lanes = new ArrayList<>();
+		int covered = 0;
+		for( int x = 0, start = -1; x <= width; x++ ) {
+			boolean lane = x < width && ( brightLanes ? detail[ x ] > threshold : detail[ x ] <= threshold );
+			if( lane && start < 0 )
+				start = x;
+			else if( !lane && start >= 0 ) {
+				if( x - start >= minWidth ) {
+					lanes.add( new int[] { start, x - 1 } );
+					covered += x - start;
+				}
+				start = -1;
+			}
+		}
+		// If the lanes cover too little, they aren't lanes and the whole image is one lane.
+		if( !contrasted || covered < width * MIN_LANE_COVERAGE ) {
+			lanes.clear();
+			lanes.add( new int[] { 0, width - 1 } );
+		}
+		return lanes.toArray( new int[ lanes.size() ][] );
+	}
+	
+	/** Averages each value with its neighbors, the window is cut at the borders.
+	 * @param values : double[] - Values.
+	 * @param radius : int - Neighbors at each side.
+	 * @return double[] - Averaged values.
+	 */
+	private static double[] boxFilter( double[] values, int radius ) {
+		double[] prefix = new double[ values.length + 1 ];
+		for( int i = 0; i < values.length; i++ )
+			prefix[ i + 1 ] = prefix[ i ] + values[ i ];
+		double[] averages = new double[ values.length ];
+		for( int i = 0; i < values.length; i++ ) {
+			int left = Math.max( 0, i - radius ), right = Math.min( values.length - 1, i + radius );
+			averages[ i ] = ( prefix[ right + 1 ] - prefix[ left ] ) / ( right - left + 1 );
+		}
+		return averages;
+	}
+	
+	/** Calculates the Otsu threshold of some values, the one that maximizes the variance
+	 * between the values below and above it.
+	 * @param values : double[] - Values.
+	 * @return double - Threshold.
+	 */
+	private static double otsuThreshold( double[] values ) {
+		double[] sorted = values.clone();
+		Arrays.sort( sorted );
+		double total = 0;
+		for( double value : sorted )
+			total += value;
+		double threshold = sorted[ sorted.length / 2 ], best = -1, accumulated = 0;
+		for( int i = 0; i < sorted.length - 1; i++ ) {
+			accumulated += sorted[ i ];
+			int below = i + 1, over = sorted.length - below;
+			double difference = accumulated / below - ( total - accumulated ) / over;
+			double variance = ( double ) below * over * difference * difference;
+			if( variance > best ) {
+				best = variance;
+				threshold = sorted[ i ];
+			}
+		}
+		return threshold;
+	}
+	
 	// Drawing utilities.
 	
 	/** Draws a net in the image.
 	 * @param image : BufferedImage - Image.
 	 * @param color : Color - Color of the drawing.
-	 * @param header : Node - Header node of the net.
+	 * @param net : Net - Net to will be drawn.
 	 * @param nodeLevel : int - Thickness of the nodes drawing.
 	 * @param lineLevel : int - Thickness of the lines drawing.
-	 * @return Node - Next node to will be drawn.
 	 */	
-	public static Node drawNet( BufferedImage image, Color color, Node current, int nodeLevel, int lineLevel ) {
-		// Base case : if current node is null, finalizes the method.
-		if( current == null )
-			return null;
-		// Base case : if current node is the last, draws it and finalizes the method.
-		if( current.getNext() == null ) {
+	public static void drawNet( BufferedImage image, Color color, Net net, int nodeLevel, int lineLevel ) {
+		Node previous = null;
+		for( Node current : net ) {
+			// Draws the line between previous and current node, and the coordinate.
+			if( previous != null )
+				drawLine( image, color, lineLevel, previous, current );
 			drawCoordinate( image, color, nodeLevel, current );
-			return current;
+			previous = current;
 		}
-		// Draws the coordinate and draws the line between current and next node.
-		drawCoordinate( image, color, nodeLevel, current );
-		drawLine( image, color, lineLevel, current, current.getNext() );
-		return drawNet( image, color, current.getNext(), nodeLevel, lineLevel );
 	}
 	
 	/** Draws a coordinate in the image.
@@ -0,0 +1,108 @@
+package utils;
+
+import java.util.Arrays;
+
+/** Square convolution kernel with integer weights.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class Kernel {
+
+	/** Weights of the kernel, row by row. */
+	private final int[] weights;
+	/** Pixels around the center, so the side is radius * 2 + 1. */
+	private final int radius;
+	/** Divisor of the weighted sum. */
+	private final int divisor;
+
+	/** Constructor.
+	 * @param radius : int - Pixels around the center.
+	 * @param divisor : int - Divisor of the weighted sum. Should be positive.
+	 * @param weights : int[] - Weights row by row. Length should be ( radius * 2 + 1 )^2.
+	 */
+	public Kernel( int radius, int divisor, int... weights ) {
+		// Precondition : weights.length == ( radius * 2 + 1 )^2; divisor > 0.
+		this.radius = radius;
+		this.divisor = divisor;
+		this.weights = weights.clone();
+	}
+
+	// Getters.
+
+	/** Returns the radius.
+	 * @return int - Pixels around the center.
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/** Returns the divisor.
+	 * @return int - Divisor of the weighted sum.
+	 */
+	public int getDivisor() {
+		return divisor;
+	}
+
+	/** Returns a weight.
+	 * @param dx : int - Horizontal offset from the center [-radius, radius].
+	 * @param dy : int - Vertical offset from the center [-radius, radius].
+	 * @return int - Weight.
+	 */
+	public int getWeight( int dx, int dy ) {
+		return weights[ ( dy + radius ) * ( radius * 2 + 1 ) + dx + radius ];
+	}
+
+	// Common kernels.
+
+	/** Returns the Laplacian kernel. Center pixel multiplied by 9 minus the 8 surrounding pixels.
+	 * @return Kernel - Laplacian kernel.
+	 */
+	public static Kernel laplace() {
+		return new Kernel( 1, 1,
+				-1, -1, -1,
+				-1,  9, -1,
+				-1, -1, -1 );
+	}
+
+	/** Returns the horizontal Sobel kernel.
+	 * @return Kernel - Sobel kernel for vertical edges.
+	 */
+	public static Kernel sobelX() {
+		return new Kernel( 1, 1,
+				-1, 0, 1,
+				-2, 0, 2,
+				-1, 0, 1 );
+	}
+
+	/** Returns the vertical Sobel kernel.
+	 * @return Kernel - Sobel kernel for horizontal edges, like the bands of a gel.
+	 */
+	public static Kernel sobelY() {
+		return new Kernel( 1, 1,
+				-1, -2, -1,
+				 0,  0,  0,
+				 1,  2,  1 );
+	}
+
+	/** Returns the 3x3 Gaussian blur kernel.
+	 * @return Kernel - Gaussian kernel.
+	 */
+	public static Kernel gaussian() {
+		return new Kernel( 1, 16,
+				1, 2, 1,
+				2, 4, 2,
+				1, 2, 1 );
+	}
+
+	/** Returns a box blur (mean) kernel.
+	 * @param radius : int - Pixels around the center.
+	 * @return Kernel - Box kernel.
+	 */
+	public static Kernel box( int radius ) {
+		int side = radius * 2 + 1;
+		int[] weights = new int[ side * side ];
+		Arrays.fill( weights, 1 );
+		return new Kernel( radius, weights.length, weights );
+	}
+
+}
@@ -0,0 +1,135 @@
+package utils;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import algorithm.Net;
+import algorithm.Node;
+import algorithm.Snapshot;
+
+/** Renders the nets into a transparent annotation layer, apart from the analysed image.
+ * All the polylines are drawn in one batched pass through Graphics2D, so the layer can be
+ * regenerated quickly at any zoom without running the analysis again.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class OverlayRenderer {
+
+	/** Private constructor. */
+	private OverlayRenderer() {}
+
+	/** Renders the nets into a new transparent layer.
+	 * @param nets : Iterable<Net> - Nets to will be drawn, in image coordinates.
+	 * @param width : int - Width of the image.
+	 * @param height : int - Height of the image.
+	 * @param scale : double - Zoom of the layer. 1 for the size of the image.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing. -1 for not drawing them.
+	 * @param lineLevel : int - Thickness of the lines drawing. -1 for not drawing them.
+	 * @return BufferedImage - ARGB layer, transparent except for the nets.
+	 */
+	public static BufferedImage render( Iterable<Net> nets, int width, int height, double scale,
+			Color color, int nodeLevel, int lineLevel ) {
+		// Collects every polyline and every node into two paths, drawn at once.
+		Path2D.Double lines = new Path2D.Double(), nodes = new Path2D.Double();
+		for( Net net : nets ) {
+			boolean first = true;
+			for( Node node : net ) {
+				add( lines, nodes, node.getX(), node.getY(), first, scale, nodeLevel );
+				first = false;
+			}
+		}
+		return draw( lines, nodes, width, height, scale, color, nodeLevel, lineLevel );
+	}
+
+	/** Renders the nets of a population snapshot into a new transparent layer.
+	 * @param snapshot : Snapshot - Population snapshot, in image coordinates.
+	 * @param width : int - Width of the image.
+	 * @param height : int - Height of the image.
+	 * @param scale : double - Zoom of the layer. 1 for the size of the image.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing. -1 for not drawing them.
+	 * @param lineLevel : int - Thickness of the lines drawing. -1 for not drawing them.
+	 * @return BufferedImage - ARGB layer, transparent except for the nets.
+	 */
+	public static BufferedImage render( Snapshot snapshot, int width, int height, double scale,
+			Color color, int nodeLevel, int lineLevel ) {
+		Path2D.Double lines = new Path2D.Double(), nodes = new Path2D.Double();
+		for( int i = 0; i < snapshot.size(); i++ ) {
+			int[] polyline = snapshot.getPolyline( i );
+			for( int k = 0; k < polyline.length; k += 2 )
+				add( lines, nodes, polyline[ k ], polyline[ k + 1 ], k == 0, scale, nodeLevel );
+		}
+		return draw( lines, nodes, width, height, scale, color, nodeLevel, lineLevel );
+	}
+
+	/** Adds a node to the paths.
+	 * @param lines : Path2D.Double - Path of the polylines.
+	 * @param nodes : Path2D.Double - Path of the nodes.
+	 * @param x : int - Horizontal component of the node.
+	 * @param y : int - Vertical component of the node.
+	 * @param first : boolean - True if it's the first node of its net.
+	 * @param scale : double - Zoom of the layer.
+	 * @param nodeLevel : int - Thickness of the nodes drawing. -1 for not drawing them.
+	 */
+	private static void add( Path2D.Double lines, Path2D.Double nodes, int x, int y, boolean first, double scale, int nodeLevel ) {
+		// Coordinates are the centers of the pixels.
+		double xs = ( x + 0.5 ) * scale, ys = ( y + 0.5 ) * scale, side = ( 2 * nodeLevel + 1 ) * scale;
+		if( first )
+			lines.moveTo( xs, ys );
+		else
+			lines.lineTo( xs, ys );
+		if( nodeLevel >= 0 )
+			nodes.append( new Rectangle2D.Double( xs - side / 2, ys - side / 2, side, side ), false );
+	}
+
+	/** Draws the paths into a new transparent layer.
+	 * @param lines : Path2D.Double - Path of the polylines.
+	 * @param nodes : Path2D.Double - Path of the nodes.
+	 * @param width : int - Width of the image.
+	 * @param height : int - Height of the image.
+	 * @param scale : double - Zoom of the layer.
+	 * @param color : Color - Color of the drawing.
+	 * @param nodeLevel : int - Thickness of the nodes drawing. -1 for not drawing them.
+	 * @param lineLevel : int - Thickness of the lines drawing. -1 for not drawing them.
+	 * @return BufferedImage - ARGB layer.
+	 */
+	private static BufferedImage draw( Path2D.Double lines, Path2D.Double nodes, int width, int height, double scale,
+			Color color, int nodeLevel, int lineLevel ) {
+		BufferedImage layer = new BufferedImage( ( int ) Math.ceil( width * scale ), ( int ) Math.ceil( height * scale ), BufferedImage.TYPE_INT_ARGB );
+		Graphics2D graphics = layer.createGraphics();
+		graphics.setColor( color );
+		graphics.setRenderingHint( RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE );
+		if( lineLevel >= 0 ) {
+			graphics.setStroke( new BasicStroke( ( float ) ( ( 2 * lineLevel + 1 ) * scale ), BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER ) );
+			graphics.draw( lines );
+		}
+		if( nodeLevel >= 0 )
+			graphics.fill( nodes );
+		graphics.dispose();
+		return layer;
+	}
+
+	/** Composes an image with a layer into a new image, scaling the image to the size of
+	 * the layer. The image isn't modified.
+	 * @param image : BufferedImage - Analysed image.
+	 * @param layer : BufferedImage - Annotation layer.
+	 * @return BufferedImage - New RGB image with the layer over the image.
+	 */
+	public static BufferedImage compose( BufferedImage image, BufferedImage layer ) {
+		BufferedImage composed = new BufferedImage( layer.getWidth(), layer.getHeight(), BufferedImage.TYPE_INT_RGB );
+		Graphics2D graphics = composed.createGraphics();
+		// Zoomed pixels are kept as squares.
+		graphics.setRenderingHint( RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR );
+		graphics.drawImage( image, 0, 0, layer.getWidth(), layer.getHeight(), null );
+		graphics.drawImage( layer, 0, 0, null );
+		graphics.dispose();
+		return composed;
+	}
+
+}
@@ -0,0 +1,192 @@
+package utils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** On-disk cache of decoded image planes and their vertical difference statistics, keyed
+ * by the SHA-256 hash of the image file content. Repeated runs over the same gel map the
+ * cached file instead of decoding and analyzing the image again, and the plane isn't copied
+ * into the heap. The gradient isn't cached: engines still calculate it from the mapped plane,
+ * in the heap (2 bytes per pixel).
+ * [info] FILE FORMAT: header of 6 big-endian integers { magic, version, width, height,
+ * 	min, max } followed by width * height pixel values, row by row.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class PlaneCache {
+
+	/** Magic number of the cache files, "DGPL". */
+	private static final int MAGIC = 0x4447504C;
+	/** Version of the file format. */
+	private static final int VERSION = 1;
+	/** Size of the header in bytes. */
+	private static final int HEADER = 6 * Integer.BYTES;
+	/** Extension of the cache files. */
+	private static final String EXTENSION = ".plane";
+
+	/** Directory of the cache files. */
+	private final Path directory;
+
+	/** Cached plane of an image. */
+	public static class Entry {
+
+		/** Image plane, mapped from the cache file. */
+		private final ImagePlane plane;
+		/** Minimum and maximum vertical pixel value difference { min, max }. */
+		private final int[] differences;
+
+		/** Constructor.
+		 * @param plane : ImagePlane - Image plane.
+		 * @param differences : int[] - Minimum and maximum vertical pixel value difference { min, max }.
+		 */
+		private Entry( ImagePlane plane, int[] differences ) {
+			this.plane = plane;
+			this.differences = differences;
+		}
+
+		/** Returns the image plane.
+		 * @return ImagePlane - Image plane.
+		 */
+		public ImagePlane getPlane() {
+			return plane;
+		}
+
+		/** Returns the vertical difference statistics.
+		 * @return int[] - Minimum and maximum vertical pixel value difference { min, max }.
+		 */
+		public int[] getDifferences() {
+			return differences.clone();
+		}
+
+	}
+
+	/** Constructor. Creates the directory if it doesn't exist.
+	 * @param directory : Path - Directory of the cache files.
+	 * @throws IOException - If the directory can't be created.
+	 */
+	public PlaneCache( Path directory ) throws IOException {
+		this.directory = Files.createDirectories( directory );
+	}
+
+	/** Returns the cached plane of an image. If the image isn't in the cache, it's decoded
+	 * and analyzed, and the cache file is written before mapping it.
+	 * @param image : Path - Image file.
+	 * @param budget : long - Memory budget in bytes for a decoded strip. 0 for decoding the whole image.
+	 * @return Entry - Cached plane of the image.
+	 * @throws IOException - If the image or the cache file can't be read or written.
+	 */
+	public Entry load( Path image, long budget ) throws IOException {
+		Path file = directory.resolve( hash( image ) + EXTENSION );
+		if( Files.isRegularFile( file ) ) {
+			Entry entry = map( file );
+			if( entry != null )
+				return entry;
+		}
+		write( decode( image, budget ), file );
+		Entry entry = map( file );
+		if( entry == null )
+			throw new IOException( "Cache file corrupted: " + file );
+		return entry;
+	}
+
+	// Cache files.
+
+	/** Maps a cache file.
+	 * @param file : Path - Cache file.
+	 * @return Entry - Cached plane, or null if the file isn't a valid cache file.
+	 * @throws IOException - If the file can't be read.
+	 */
+	private static Entry map( Path file ) throws IOException {
+		try( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+			if( channel.size() < HEADER )
+				return null;
+			ByteBuffer header = ByteBuffer.allocate( HEADER );
+			while( header.hasRemaining() && channel.read( header ) >= 0 );
+			header.flip();
+			int magic = header.getInt(), version = header.getInt(), width = header.getInt(), height = header.getInt();
+			int[] differences = { header.getInt(), header.getInt() };
+			if( magic != MAGIC || version != VERSION || channel.size() != HEADER + ( long ) width * height )
+				return null;
+			// The mapping stays valid after closing the channel.
+			MappedByteBuffer pixels = channel.map( FileChannel.MapMode.READ_ONLY, HEADER, ( long ) width * height );
+			return new Entry( new ImagePlane( pixels, width, height ), differences );
+		}
+	}
+
+	/** Writes a cache file. It's written into a temporary file and moved, so other processes
+	 * never map an incomplete file.
+	 * @param plane : ImagePlane - Image plane.
+	 * @param file : Path - Cache file.
+	 * @throws IOException - If the file can't be written.
+	 */
+	private void write( ImagePlane plane, Path file ) throws IOException {
+		int[] differences = ImageUtils.verticalDifferenceAnalysis( plane );
+		ByteBuffer header = ByteBuffer.allocate( HEADER );
+		header.putInt( MAGIC ).putInt( VERSION ).putInt( plane.getWidth() ).putInt( plane.getHeight() )
+				.putInt( differences[ 0 ] ).putInt( differences[ 1 ] ).flip();
+		Path temporary = Files.createTempFile( directory, "plane", ".tmp" );
+		try {
+			try( FileChannel channel = FileChannel.open( temporary, StandardOpenOption.WRITE ) ) {
+				for( ByteBuffer buffer : new ByteBuffer[] { header, plane.getPixels() } )
+					while( buffer.hasRemaining() )
+						channel.write( buffer );
+			}
+			Files.move( temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		} finally {
+			Files.deleteIfExists( temporary );
+		}
+	}
+
+	// Utilities.
+
+	/** Decodes the plane of an image.
+	 * @param image : Path - Image file.
+	 * @param budget : long - Memory budget in bytes for a decoded strip. 0 for decoding the whole image.
+	 * @return ImagePlane - Decoded image plane.
+	 * @throws IOException - If the image can't be decoded.
+	 */
+	private static ImagePlane decode( Path image, long budget ) throws IOException {
+		if( budget > 0 )
+			try( TiledImageSource source = new TiledImageSource( image.toFile() ) ) {
+				return new ImagePlane( source, 0, source.getWidth(), budget );
+			}
+		BufferedImage decoded = ImageUtils.loadImage( image.toString() );
+		if( decoded == null )
+			throw new IOException( "Image can't be read: " + image );
+		return new ImagePlane( decoded );
+	}
+
+	/** Calculates the SHA-256 hash of the content of a file.
+	 * @param file : Path - File.
+	 * @return String - Hexadecimal hash.
+	 * @throws IOException - If the file can't be read.
+	 */
+	private static String hash( Path file ) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance( "SHA-256" );
+		} catch( NoSuchAlgorithmException exception ) {
+			throw new IllegalStateException( "SHA-256 not available!", exception );
+		}
+		byte[] buffer = new byte[ 64 * 1024 ];
+		try( InputStream input = Files.newInputStream( file ) ) {
+			for( int read; ( read = input.read( buffer ) ) > 0; )
+				digest.update( buffer, 0, read );
+		}
+		StringBuilder hex = new StringBuilder();
+		for( byte value : digest.digest() )
+			hex.append( String.format( "%02x", value ) );
+		return hex.toString();
+	}
+
+}
@@ -0,0 +1,145 @@
+package utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.stream.IntStream;
+
+/** Point operation over the average intensity of the pixels, compiled into a 256
+ * entries lookup table. Operations can be chained into a single table, and are
+ * applied in one parallel pass over the image, turning it into grayscale.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class PointOperation {
+
+	/** Quantity of rows of a band processed by a thread. */
+	static final int BAND_HEIGHT = 32;
+
+	/** Output gray value for each average intensity. */
+	private final int[] table;
+
+	/** Constructor.
+	 * @param table : int[] - Output gray value [0, 255] for each average intensity [0, 255].
+	 */
+	public PointOperation( int[] table ) {
+		// Precondition : table.length == 256.
+		this.table = table.clone();
+	}
+
+	/** Returns the operation that keeps the average intensity, that's the grayscale.
+	 * @return PointOperation - Identity operation.
+	 */
+	public static PointOperation identity() {
+		int[] table = new int[ 256 ];
+		for( int value = 0; value < table.length; value++ )
+			table[ value ] = value;
+		return new PointOperation( table );
+	}
+
+	// Getters.
+
+	/** Returns the output of an intensity.
+	 * @param value : int - Average intensity [0, 255].
+	 * @return int - Output gray value [0, 255].
+	 */
+	public int map( int value ) {
+		return table[ value ];
+	}
+
+	// Composition.
+
+	/** Chains another operation after this one, into a single table.
+	 * @param next : PointOperation - Operation applied over the output of this one.
+	 * @return PointOperation - Chained operation.
+	 */
+	public PointOperation then( PointOperation next ) {
+		int[] chained = new int[ 256 ];
+		for( int value = 0; value < chained.length; value++ )
+			chained[ value ] = next.table[ table[ value ] ];
+		return new PointOperation( chained );
+	}
+
+	// Application.
+
+	/** Applies the operation over the image. Every pixel is replaced by an opaque gray
+	 * pixel, the output for its average intensity.
+	 * @param image : BufferedImage - Image to will be processed.
+	 */
+	public void apply( BufferedImage image ) {
+		int width = image.getWidth(), height = image.getHeight();
+		// Output pixel for each sum of the three channels, so no division per pixel.
+		int[] sums = new int[ 766 ];
+		for( int sum = 0; sum < sums.length; sum++ ) {
+			int gray = table[ sum / 3 ];
+			sums[ sum ] = 0xFF000000 | gray << 16 | gray << 8 | gray;
+		}
+		// Integer RGB images are processed directly over their data buffer. A sub-image shares the
+		// buffer of its parent, so its rows start at an offset and are a scanline stride apart.
+		if( ( image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB )
+				&& image.getSampleModel() instanceof SinglePixelPackedSampleModel ) {
+			WritableRaster raster = image.getRaster();
+			DataBufferInt buffer = ( DataBufferInt ) raster.getDataBuffer();
+			SinglePixelPackedSampleModel model = ( SinglePixelPackedSampleModel ) raster.getSampleModel();
+			int[] data = buffer.getData();
+			int stride = model.getScanlineStride();
+			int offset = buffer.getOffset() + model.getOffset( -raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY() );
+			int mask = image.getType() == BufferedImage.TYPE_INT_RGB ? 0x00FFFFFF : 0xFFFFFFFF;
+			bands( height ).forEach( band -> {
+				for( int y = band * BAND_HEIGHT; y < Math.min( height, ( band + 1 ) * BAND_HEIGHT ); y++ )
+					for( int i = offset + y * stride, end = i + width; i < end; i++ )
+						data[ i ] = sums[ sum( data[ i ] ) ] & mask;
+			} );
+			return;
+		}
+		// Other images are processed through bands of RGB pixels.
+		bands( height ).forEach( band -> {
+			int y = band * BAND_HEIGHT, rows = Math.min( BAND_HEIGHT, height - y );
+			int[] pixels = image.getRGB( 0, y, width, rows, null, 0, width );
+			for( int i = 0; i < pixels.length; i++ )
+				pixels[ i ] = sums[ sum( pixels[ i ] ) ];
+			image.setRGB( 0, y, width, rows, pixels, 0, width );
+		} );
+	}
+
+	/** Generates the histogram of the average intensity of the pixels. Each band of rows
+	 * is counted into a partial histogram, and the partial histograms are merged.
+	 * @param image : BufferedImage - Image.
+	 * @return int[] - Histogram array, 256 entries.
+	 */
+	public static int[] histogram( BufferedImage image ) {
+		int width = image.getWidth(), height = image.getHeight();
+		return bands( height ).mapToObj( band -> {
+			int[] partial = new int[ 256 ];
+			int y = band * BAND_HEIGHT, rows = Math.min( BAND_HEIGHT, height - y );
+			for( int pixel : image.getRGB( 0, y, width, rows, null, 0, width ) )
+				partial[ sum( pixel ) / 3 ]++;
+			return partial;
+		} ).reduce( new int[ 256 ], ( merged, partial ) -> {
+			int[] sum = new int[ 256 ];
+			for( int value = 0; value < sum.length; value++ )
+				sum[ value ] = merged[ value ] + partial[ value ];
+			return sum;
+		} );
+	}
+
+	// Utilities.
+
+	/** Returns the parallel stream of the bands of rows of an image.
+	 * @param height : int - Height of the image.
+	 * @return IntStream - Indexes of the bands.
+	 */
+	static IntStream bands( int height ) {
+		return IntStream.range( 0, ( height + BAND_HEIGHT - 1 ) / BAND_HEIGHT ).parallel();
+	}
+
+	/** Returns the sum of the three color channels of a packed RGB pixel.
+	 * @param pixel : int - Packed RGB pixel.
+	 * @return int - Sum of the channels [0, 765].
+	 */
+	static int sum( int pixel ) {
+		return ( ( pixel >> 16 ) & 0xFF ) + ( ( pixel >> 8 ) & 0xFF ) + ( pixel & 0xFF );
+	}
+
+}
@@ -0,0 +1,107 @@
+package utils;
+
+import java.util.SplittableRandom;
+
+/** Independent stream of pseudo-random values, not shared between threads. Streams are
+ * split deterministically from a parent one, so every engine, worker or task gets its own
+ * stream and parallel runs are reproducible for a given seed, without contention.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class RandomStream {
+
+	/** Random generator of the stream. */
+	private final SplittableRandom source;
+	/** Second normally distributed value generated by the polar method, if not used yet. */
+	private double nextGaussian;
+	/** True if there is a normally distributed value not used yet. */
+	private boolean hasNextGaussian;
+
+	/** Constructor.
+	 * @param seed : long - Seed of the pseudo-random sequence.
+	 */
+	public RandomStream( long seed ) {
+		this( new SplittableRandom( seed ) );
+	}
+
+	/** Constructor.
+	 * @param source : SplittableRandom - Random generator of the stream.
+	 */
+	private RandomStream( SplittableRandom source ) {
+		this.source = source;
+	}
+
+	/** Splits a new independent stream from this one. The sequence of the new stream
+	 * depends only on the sequence of this one until the split.
+	 * @return RandomStream - New stream.
+	 */
+	public RandomStream split() {
+		return new RandomStream( source.split() );
+	}
+
+	// Random values.
+
+	/** Returns a random integer between two given limits, uniformly distributed.
+	 * @param lower : int - Left/Lower inclusive limit.
+	 * @param upper : int - Right/Upper inclusive limit. Not less than lower.
+	 * @return int - Random integer [a,b].
+	 */
+	public int getInt( int lower, int upper ) {
+		return lower + source.nextInt( upper - lower + 1 );
+	}
+
+	/** Returns a random long integer between 0 (inclusive) and a bound (exclusive).
+	 * @param bound : long - Upper exclusive limit. Should be positive.
+	 * @return long - Random long integer [0, bound).
+	 */
+	public long getLong( long bound ) {
+		return source.nextLong( bound );
+	}
+
+	/** Returns a normally distributed random value, by the polar method.
+	 * @param mean : float - Mean of the normal distribution.
+	 * @param sdeviation : float - Standard deviation of the normal distribution.
+	 * @return double - Normally distributed random value.
+	 */
+	public double getGaussian( float mean, float sdeviation ) {
+		if( hasNextGaussian ) {
+			hasNextGaussian = false;
+			return nextGaussian * sdeviation + mean;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * source.nextDouble() - 1;
+			v2 = 2 * source.nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while( s >= 1 || s == 0 );
+		double multiplier = StrictMath.sqrt( -2 * StrictMath.log( s ) / s );
+		nextGaussian = v2 * multiplier;
+		hasNextGaussian = true;
+		return v1 * multiplier * sdeviation + mean;
+	}
+
+	/** Returns a normally distributed random integer value.
+	 * @param mean : float - Mean of the normal distribution.
+	 * @param sdeviation : float - Standard deviation of the normal distribution.
+	 * @return int - Normally distributed random value.
+	 */
+	public int getGaussianInt( float mean, float sdeviation ) {
+		return ( int ) Math.round( getGaussian( mean, sdeviation ) );
+	}
+
+	/** Returns a random value from an array.
+	 * @param values : int[] - Array of values.
+	 * @return int - Random value from values array.
+	 */
+	public int getFrom( int... values ) {
+		return values[ getInt( 0, values.length - 1 ) ];
+	}
+
+	/** Returns a random vertical standard angle (direction), up or down.
+	 * @return int - Random angle, 90 or 270.
+	 */
+	public int getVerticalDirection() {
+		return getFrom( 90, 270 );
+	}
+
+}
@@ -10,6 +10,8 @@ public class Randomizer {
 	
 	/** Random generator object. */
 	private static Random randomizer = new Random();
+	/** Root stream, where the streams of the engines and workers are split from. */
+	private static RandomStream root = new RandomStream( new Random().nextLong() );
 	
 	/** Private constructor. */
 	private Randomizer() {}
@@ -17,17 +19,26 @@ public class Randomizer {
 	/** Sets the seed of the pseudo-random sequence. 
 	 * @param seed : int - Seed of the pseudo-random sequence.
 	 */
-	public static void seed( int seed ) {
+	public static synchronized void seed( int seed ) {
 		randomizer = new Random( seed );
+		root = new RandomStream( seed );
 	}
 	
-	/** Returns a random integer between two given limits. 
+	/** Splits a new independent stream from the root stream. Streams split in the same order
+	 * after the same seed give the same sequences.
+	 * @return RandomStream - New stream, for a single thread.
+	 */
+	public static synchronized RandomStream stream() {
+		return root.split();
+	}
+	
+	/** Returns a random integer between two given limits, uniformly distributed. 
 	 * @param lower : int - Left/Lower inclusive limit.
-	 * @param upper : int - Right/Upper inclusive limit.
+	 * @param upper : int - Right/Upper inclusive limit. Not less than lower.
 	 * @return int - Random integer [a,b].
 	 */
 	public static int getInt( int lower, int upper ) {
-		return ( int ) randomizer.nextDouble() * ( upper - lower + 1 ) + lower;
+		return lower + randomizer.nextInt( upper - lower + 1 );
 	}
 	
 	/** Returns a normally distributed random value. 
@@ -57,15 +68,20 @@ public class Randomizer {
 		return values[ getInt( 0, values.length - 1 ) ];
 	}
 	
-	/** Returns a random value excluding the ranges. 
+	/** Returns a random value excluding the ranges, drawing again while it's within some range.
+	 * [info] Doesn't return if every value is within some range. FreeRowSampler draws
+	 * the free rows directly.
 	 * @param lower : int - Left/Lower inclusive limit.
 	 * @param upper : int - Right/Upper inclusive limit.
 	 * @param ranges : int[][] - Matrix of limits.
 	 * @return int - Random value.
 	 */
 	public static int getIntExceptTheRanges( int lower, int upper, int[][] ranges ) {
-		int chosen = getInt( lower, upper );
-		return ImageUtils.withinRanges( chosen, ranges ) ? getIntExceptTheRanges( lower, upper, ranges ) : chosen;
+		int chosen;
+		do
+			chosen = getInt( lower, upper );
+		while( ImageUtils.withinRanges( chosen, ranges ) );
+		return chosen;
 	}
 	
 	/** Returns a normally distributed random value excluding the ranges. 
@@ -77,8 +93,11 @@ public class Randomizer {
 	 * @return int - Random Gaussian value.
 	 */
 	public static int getGaussianExceptTheRanges( float mean, float sdeviation, int lower, int upper, int[][] ranges ) {
-		int chosen = getGaussianInt( mean, sdeviation );
-		return ImageUtils.withinRanges( chosen, ranges ) || chosen < lower || chosen > upper ? getGaussianExceptTheRanges( mean, sdeviation, lower, upper, ranges ) : chosen;
+		int chosen;
+		do
+			chosen = getGaussianInt( mean, sdeviation );
+		while( ImageUtils.withinRanges( chosen, ranges ) || chosen < lower || chosen > upper );
+		return chosen;
 	}
 	
 	/** Returns a random standard angle. 
@@ -92,7 +111,7 @@ public class Randomizer {
 	 * @return int - Random angle. Maybe 90 (up) or 270 (down) degrees.
 	 */
 	public static int getVerticalDirection() {
-		return getFrom( 90, 207 );
+		return getFrom( 90, 270 );
 	}
 	
 	/** Returns a random horizontal standard angle (direction). 
@@ -0,0 +1,110 @@
+package utils;
+
+/** Persistent occupancy index over the rows of an image. Stores how many nets
+ * cover each row, so asking if a row is occupied is O(1), and moving the limits
+ * of a net only updates the rows that changed.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class RowOccupancy {
+
+	/** Quantity of ranges covering each row. */
+	private final int[] counts;
+	/** Sampler of the free rows notified when a row becomes free or occupied. Null if none. */
+	private FreeRowSampler sampler;
+
+	/** Constructor.
+	 * @param height : int - Quantity of rows (height of the image).
+	 */
+	public RowOccupancy( int height ) {
+		counts = new int[ height ];
+	}
+
+	// Getters.
+
+	/** Returns the quantity of rows.
+	 * @return int - Height of the index.
+	 */
+	public int getHeight() {
+		return counts.length;
+	}
+
+	/** Verifies if the row is within some range.
+	 * @param row : int - Row.
+	 * @return boolean - True if row is occupied, False otherwise.
+	 */
+	public boolean isOccupied( int row ) {
+		return row >= 0 && row < counts.length && counts[ row ] > 0;
+	}
+
+	/** Verifies if the row is within some range other than the given one.
+	 * @param row : int - Row.
+	 * @param top : int - Upper limit of the own range.
+	 * @param bottom : int - Lower limit of the own range.
+	 * @return boolean - True if row is occupied by other range, False otherwise.
+	 */
+	public boolean isOccupiedByOthers( int row, int top, int bottom ) {
+		if( row < 0 || row >= counts.length )
+			return false;
+		return counts[ row ] - ( row >= top && row <= bottom ? 1 : 0 ) > 0;
+	}
+
+	// Setters.
+
+	/** Attaches a sampler of the free rows, to keep it in sync with the index.
+	 * @param sampler : FreeRowSampler - Sampler of the free rows.
+	 */
+	void attach( FreeRowSampler sampler ) {
+		this.sampler = sampler;
+	}
+
+	/** Adds a range to the index.
+	 * @param top : int - Upper inclusive limit.
+	 * @param bottom : int - Lower inclusive limit.
+	 */
+	public void add( int top, int bottom ) {
+		update( top, bottom, 1 );
+	}
+
+	/** Removes a range from the index.
+	 * @param top : int - Upper inclusive limit.
+	 * @param bottom : int - Lower inclusive limit.
+	 */
+	public void remove( int top, int bottom ) {
+		update( top, bottom, -1 );
+	}
+
+	/** Replaces a range by another one, updating only the rows that changed.
+	 * @param top : int - Old upper inclusive limit.
+	 * @param bottom : int - Old lower inclusive limit.
+	 * @param newTop : int - New upper inclusive limit.
+	 * @param newBottom : int - New lower inclusive limit.
+	 */
+	public void move( int top, int bottom, int newTop, int newBottom ) {
+		// Rows released, above and below the new range.
+		update( top, Math.min( bottom, newTop - 1 ), -1 );
+		update( Math.max( top, newBottom + 1 ), bottom, -1 );
+		// Rows taken, above and below the old range.
+		update( newTop, Math.min( newBottom, top - 1 ), 1 );
+		update( Math.max( newTop, bottom + 1 ), newBottom, 1 );
+	}
+
+	/** Adds a value to the counters of the rows of a range.
+	 * @param top : int - Upper inclusive limit.
+	 * @param bottom : int - Lower inclusive limit.
+	 * @param value : int - Value to add.
+	 */
+	private void update( int top, int bottom, int value ) {
+		// Rows out of the image are ignored.
+		top = Math.max( top, 0 );
+		bottom = Math.min( bottom, counts.length - 1 );
+		for( int row = top; row <= bottom; row++ ) {
+			int before = counts[ row ];
+			counts[ row ] += value;
+			// Notifies the sampler only when the row becomes free or occupied.
+			if( sampler != null && ( before == 0 ) != ( counts[ row ] == 0 ) )
+				sampler.update( row, counts[ row ] == 0 );
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/** Image file read by regions, without decoding the whole image as a BufferedImage. Very
+ * large scans are decoded as horizontal strips or lane tiles within a memory budget.
+ * [info] Only the decoding is bounded: an engine over a whole image still needs its plane
+ * (1 byte per pixel) and its gradient (2 bytes per pixel). Memory is only bounded by the
+ * tile when each lane is evolved on its own. Formats like TIFF read the regions directly,
+ * while JPEG decodes the rows above each region again, at the cost of decoding time.
+ * @author Cristopher Alvear Candia.
+ * @version 1.0
+ */
+public class TiledImageSource implements Closeable {
+
+	/** Bytes per pixel of a decoded RGB region. */
+	private static final int PIXEL_BYTES = 4;
+
+	/** Input stream of the image file. */
+	private final ImageInputStream stream;
+	/** Reader of the image format. */
+	private final ImageReader reader;
+	/** Dimensions of the image. */
+	private final int width, height;
+
+	/** Constructor. Reads the header of the image.
+	 * @param file : File - Image file.
+	 * @throws IOException - If the file can't be read or its format isn't supported.
+	 */
+	public TiledImageSource( File file ) throws IOException {
+		stream = ImageIO.createImageInputStream( file );
+		if( stream == null )
+			throw new IOException( "Image can't be read: " + file );
+		Iterator<ImageReader> readers = ImageIO.getImageReaders( stream );
+		if( !readers.hasNext() ) {
+			stream.close();
+			throw new IOException( "Image format not supported: " + file );
+		}
+		reader = readers.next();
+		reader.setInput( stream, false, true );
+		width = reader.getWidth( 0 );
+		height = reader.getHeight( 0 );
+	}
+
+	// Getters.
+
+	/** Returns the width of the image.
+	 * @return int - Width in pixels.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/** Returns the height of the image.
+	 * @return int - Height in pixels.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/** Returns the quantity of rows of a strip that fits in a memory budget.
+	 * @param regionWidth : int - Width of the strip in pixels.
+	 * @param budget : long - Memory budget in bytes for a decoded strip.
+	 * @return int - Rows of the strip, at least 1.
+	 */
+	public int stripHeight( int regionWidth, long budget ) {
+		return ( int ) Math.max( 1, Math.min( height, budget / ( ( long ) regionWidth * PIXEL_BYTES ) ) );
+	}
+
+	// Reading.
+
+	/** Decodes a region of the image.
+	 * @param x : int - Left column of the region.
+	 * @param y : int - Top row of the region.
+	 * @param regionWidth : int - Width of the region.
+	 * @param regionHeight : int - Height of the region.
+	 * @return BufferedImage - Decoded region.
+	 * @throws IOException - If the region can't be decoded.
+	 */
+	public synchronized BufferedImage read( int x, int y, int regionWidth, int regionHeight ) throws IOException {
+		ImageReadParam param = reader.getDefaultReadParam();
+		param.setSourceRegion( new Rectangle( x, y, regionWidth, regionHeight ) );
+		return reader.read( 0, param );
+	}
+
+	/** Decodes the whole image keeping one of each step pixels, for analysis over a
+	 * reduced version of the image.
+	 * @param xstep : int - Horizontal step, 1 for keeping every column.
+	 * @param ystep : int - Vertical step, 1 for keeping every row.
+	 * @return BufferedImage - Decoded subsampled image.
+	 * @throws IOException - If the image can't be decoded.
+	 */
+	public synchronized BufferedImage readSubsampled( int xstep, int ystep ) throws IOException {
+		ImageReadParam param = reader.getDefaultReadParam();
+		param.setSourceSubsampling( xstep, ystep, 0, 0 );
+		return reader.read( 0, param );
+	}
+
+	/** Closes the reader and the file. */
+	@Override
+	public synchronized void close() throws IOException {
+		reader.dispose();
+		stream.close();
+	}
+
+}